@@ -23,4 +23,11 @@
     public static int w(...);
     public static int d(...);
     public static int e(...);
+}
+
+# RingLog is a no-op in release builds; drop the calls together with
+# their arguments.
+-assumenosideeffects class com.ai.ringbutton.RingLog {
+    public static void i(...);
+    public static void v(...);
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.ai.ringbutton;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Benchmarks measure, draw and touch of a RingButton inflated from
+ * R.layout.ring_button and fails on regressions against a stored baseline.
+ * <p>
+ * Every case runs on the UI thread, warms up, then records operations per
+ * second and objects allocated per operation. A case fails when its
+ * throughput drops below a quarter of the baseline or when it allocates a
+ * quarter more. The baseline is the asset {@value #BASELINE} of the test
+ * APK. Cases without an entry are only logged, in the format of the
+ * baseline, so a new baseline can be copied from the log of a reference
+ * device.
+ */
+public class RingButtonBenchmarkTest extends ActivityInstrumentationTestCase2<MainActivity> {
+
+    private static final String TAG = "RingButtonBenchmark";
+    private static final String BASELINE = "benchmark-baseline.properties";
+
+    private static final int SIZE = 400;
+    private static final int WARM_UP = 200;
+    private static final int ITERATIONS = 2000;
+    private static final double MIN_THROUGHPUT_RATIO = 0.25;
+    private static final double MAX_ALLOCATION_RATIO = 1.25;
+
+    private interface Operation {
+        void run(int i);
+    }
+
+    private RingButton mButton;
+    private Properties mBaseline;
+
+    public RingButtonBenchmarkTest() {
+        super(MainActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final Activity activity = getActivity();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                FrameLayout root = new FrameLayout(activity);
+                mButton = (RingButton) LayoutInflater.from(activity)
+                        .inflate(R.layout.ring_button, root, false);
+                root.addView(mButton);
+                activity.setContentView(root, new ViewGroup.LayoutParams(SIZE, SIZE));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        mBaseline = new Properties();
+        try {
+            InputStream in = getInstrumentation().getContext().getAssets().open(BASELINE);
+            try {
+                mBaseline.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (FileNotFoundException e) {
+            Log.w(TAG, "no " + BASELINE + ", only logging");
+        }
+    }
+
+    /**
+     * The thread allocation counter counts only while allocation counting
+     * is on, and the switch has no replacement that is not deprecated.
+     */
+    @SuppressWarnings("deprecation")
+    private static void setAllocCounting(boolean enabled) {
+        if (enabled) {
+            Debug.startAllocCounting();
+        } else {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private void benchmark(String name, final Operation operation) throws IOException {
+        final long[] result = new long[2];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < WARM_UP; i++) {
+                    operation.run(i);
+                }
+                setAllocCounting(true);
+                try {
+                    Debug.resetThreadAllocCount();
+                    long start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        operation.run(i);
+                    }
+                    result[0] = System.nanoTime() - start;
+                    result[1] = Debug.getThreadAllocCount();
+                } finally {
+                    setAllocCounting(false);
+                }
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        double opsPerSecond = ITERATIONS * 1e9 / result[0];
+        double allocationsPerOp = (double) result[1] / ITERATIONS;
+        Log.i(TAG, String.format(Locale.US, "%s.opsPerSecond=%.0f", name, opsPerSecond));
+        Log.i(TAG, String.format(Locale.US, "%s.allocationsPerOp=%.2f", name, allocationsPerOp));
+
+        String baseOps = mBaseline.getProperty(name + ".opsPerSecond");
+        if (baseOps != null) {
+            double min = Double.parseDouble(baseOps) * MIN_THROUGHPUT_RATIO;
+            assertTrue(name + ": " + opsPerSecond + " ops/s, baseline allows " + min,
+                    opsPerSecond >= min);
+        }
+        String baseAllocations = mBaseline.getProperty(name + ".allocationsPerOp");
+        if (baseAllocations != null) {
+            double max = Double.parseDouble(baseAllocations) * MAX_ALLOCATION_RATIO;
+            assertTrue(name + ": " + allocationsPerOp + " allocations/op, baseline allows "
+                    + max, allocationsPerOp <= max);
+        }
+    }
+
+    public void testMeasure() throws IOException {
+        benchmark("measure", new Operation() {
+            @Override
+            public void run(int i) {
+                // alternate sizes so every pass recomputes the ring
+                int size = SIZE - (i & 1);
+                int spec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+                mButton.measure(spec, spec);
+                mButton.layout(0, 0, mButton.getMeasuredWidth(), mButton.getMeasuredHeight());
+            }
+        });
+    }
+
+    public void testDraw() throws IOException {
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(SIZE, SIZE,
+                Bitmap.Config.ARGB_8888));
+        benchmark("draw", new Operation() {
+            @Override
+            public void run(int i) {
+                mButton.draw(canvas);
+            }
+        });
+    }
+
+    public void testTouch() throws IOException {
+        float center = mButton.getWidth() / 2f;
+        // on the ring centerline at 12 o'clock, clicks invert the colors
+        float ringY = center - mButton.getWidth() * 5 / 16f;
+        long now = SystemClock.uptimeMillis();
+        final MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN,
+                center, ringY, 0);
+        final MotionEvent move = MotionEvent.obtain(now, now + 10, MotionEvent.ACTION_MOVE,
+                center + 1, ringY, 0);
+        final MotionEvent up = MotionEvent.obtain(now, now + 20, MotionEvent.ACTION_UP,
+                center + 1, ringY, 0);
+        try {
+            benchmark("touch", new Operation() {
+                @Override
+                public void run(int i) {
+                    mButton.dispatchTouchEvent(down);
+                    mButton.dispatchTouchEvent(move);
+                    mButton.dispatchTouchEvent(up);
+                }
+            });
+        } finally {
+            down.recycle();
+            move.recycle();
+            up.recycle();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ai.ringbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws RingButton into a software bitmap and checks the pixels of the
+ * text render modes, the bitmap cache, segments and the progress arc.
+ */
+public class RingButtonDrawTest extends AndroidTestCase {
+
+    private static final int SIZE = 200;
+    private static final int RING_COLOR = 0xFF0000FF;
+    private static final int SEGMENT_COLOR = 0xFF00FF00;
+    private static final int PROGRESS_COLOR = 0x80FF0000;
+    // antialiasing and blending rounding
+    private static final int CHANNEL_TOLERANCE = 8;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private RingButton mButton;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mButton = new RingButton(getContext());
+        mButton.setRingBackgroundColor(RING_COLOR);
+    }
+
+    private static Bitmap draw(View view) {
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, SIZE, SIZE);
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    /**
+     * @param angle degrees clockwise from 12 o'clock
+     * @return color of the ring centerline at the angle
+     */
+    private static int centerlinePixel(Bitmap bitmap, float angle) {
+        float radius = RingGeometry.centerlineRadius(SIZE, RingGeometry.resolveInternalDiameter(
+                SIZE, -1));
+        double a = Math.toRadians(angle);
+        int x = (int) Math.round(SIZE / 2 + radius * Math.sin(a));
+        int y = (int) Math.round(SIZE / 2 - radius * Math.cos(a));
+        return bitmap.getPixel(x, y);
+    }
+
+    private static void assertColor(int expected, int actual) {
+        int[] e = {Color.alpha(expected), Color.red(expected), Color.green(expected),
+                Color.blue(expected)};
+        int[] a = {Color.alpha(actual), Color.red(actual), Color.green(actual),
+                Color.blue(actual)};
+        for (int i = 0; i < e.length; i++) {
+            if (Math.abs(e[i] - a[i]) > CHANNEL_TOLERANCE) {
+                fail(String.format("expected #%08X but was #%08X", expected, actual));
+            }
+        }
+    }
+
+    /**
+     * Sets the progress from this thread and waits until the main looper
+     * applied it.
+     */
+    private static void setProgress(RingButton button, float progress)
+            throws InterruptedException {
+        button.setProgress(progress);
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    public void testBothRenderModesDrawText() {
+        mButton.setText("");
+        Bitmap empty = draw(mButton);
+        assertColor(RING_COLOR, centerlinePixel(empty, 0));
+
+        mButton.setText("RingButton");
+        mButton.setTextRenderMode(RingButton.TEXT_RENDER_MODE_PATH);
+        Bitmap path = draw(mButton);
+        mButton.setTextRenderMode(RingButton.TEXT_RENDER_MODE_GLYPHS);
+        Bitmap glyphs = draw(mButton);
+        assertFalse(path.sameAs(empty));
+        assertFalse(glyphs.sameAs(empty));
+    }
+
+    public void testBitmapCacheDrawsSamePixels() throws Exception {
+        mButton.setText("RingButton");
+        mButton.addSegment(90, 90, SEGMENT_COLOR, "Q2");
+        for (int mode : new int[] {RingButton.TEXT_RENDER_MODE_PATH,
+                RingButton.TEXT_RENDER_MODE_GLYPHS}) {
+            mButton.setTextRenderMode(mode);
+            mButton.setBitmapCacheEnabled(false);
+            Bitmap direct = draw(mButton);
+            mButton.setBitmapCacheEnabled(true);
+            // the first draw fills the cache, the second one is drawn from it
+            assertTrue("mode " + mode, direct.sameAs(draw(mButton)));
+            assertTrue("mode " + mode, direct.sameAs(draw(mButton)));
+        }
+
+        // the progress arc bypasses the cache
+        setProgress(mButton, 0.5f);
+        mButton.setBitmapCacheEnabled(false);
+        Bitmap direct = draw(mButton);
+        mButton.setBitmapCacheEnabled(true);
+        assertTrue(direct.sameAs(draw(mButton)));
+    }
+
+    public void testSegmentCoversItsArc() {
+        mButton.setText("");
+        mButton.addSegment(90, 90, SEGMENT_COLOR, null);
+        Bitmap bitmap = draw(mButton);
+        assertColor(SEGMENT_COLOR, centerlinePixel(bitmap, 100));
+        assertColor(SEGMENT_COLOR, centerlinePixel(bitmap, 135));
+        assertColor(SEGMENT_COLOR, centerlinePixel(bitmap, 170));
+        assertColor(RING_COLOR, centerlinePixel(bitmap, 45));
+        assertColor(RING_COLOR, centerlinePixel(bitmap, 270));
+    }
+
+    public void testProgressBlendsOverRing() throws Exception {
+        mButton.setText("");
+        mButton.setProgressColor(PROGRESS_COLOR);
+        setProgress(mButton, 0.25f);
+        assertEquals(0.25f, mButton.getProgress(), 0);
+        Bitmap bitmap = draw(mButton);
+        // half red over blue
+        assertColor(0xFF80007F, centerlinePixel(bitmap, 45));
+        assertColor(RING_COLOR, centerlinePixel(bitmap, 135));
+
+        setProgress(mButton, 0);
+        assertColor(RING_COLOR, centerlinePixel(draw(mButton), 45));
+    }
+}
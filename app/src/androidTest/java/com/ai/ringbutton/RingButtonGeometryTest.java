@@ -0,0 +1,96 @@
+package com.ai.ringbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.test.AndroidTestCase;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * Checks that the ring geometry (text path or glyph layout) is rebuilt only
+ * when an input of it changes, not on every draw.
+ */
+public class RingButtonGeometryTest extends AndroidTestCase {
+
+    private static final int SIZE = 200;
+
+    private RingButton mButton;
+    private Canvas mCanvas;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mButton = new RingButton(getContext());
+        mButton.setText("RingButton");
+        mButton.setMetricsEnabled(true);
+        mCanvas = new Canvas(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        layout(SIZE);
+    }
+
+    private void layout(int size) {
+        int spec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+        mButton.measure(spec, spec);
+        mButton.layout(0, 0, size, size);
+    }
+
+    private long rebuilds() {
+        return mButton.getMetrics().snapshot().getGeometryRebuildCount();
+    }
+
+    public void testRepeatedDrawsDoNotRebuild() {
+        mButton.draw(mCanvas);
+        long rebuilds = rebuilds();
+        for (int i = 0; i < 10; i++) {
+            mButton.draw(mCanvas);
+        }
+        assertEquals(rebuilds, rebuilds());
+    }
+
+    public void testGlyphModeRepeatedDrawsDoNotRebuild() {
+        mButton.setTextRenderMode(RingButton.TEXT_RENDER_MODE_GLYPHS);
+        mButton.draw(mCanvas);
+        long rebuilds = rebuilds();
+        for (int i = 0; i < 10; i++) {
+            mButton.draw(mCanvas);
+        }
+        assertEquals(rebuilds, rebuilds());
+    }
+
+    public void testColorChangesDoNotRebuild() {
+        mButton.draw(mCanvas);
+        long rebuilds = rebuilds();
+        mButton.setTextColor(Color.RED);
+        mButton.setRingBackgroundColor(Color.BLUE);
+        mButton.draw(mCanvas);
+        assertEquals(rebuilds, rebuilds());
+    }
+
+    public void testTextSizeChangesRebuildOnce() {
+        mButton.draw(mCanvas);
+        long rebuilds = rebuilds();
+        mButton.setTextSize(TypedValue.COMPLEX_UNIT_PX, 20);
+        mButton.setTextSize(TypedValue.COMPLEX_UNIT_PX, 24);
+        mButton.draw(mCanvas);
+        mButton.draw(mCanvas);
+        assertEquals(rebuilds + 1, rebuilds());
+    }
+
+    public void testTextChangeRebuildsOnce() {
+        mButton.draw(mCanvas);
+        long rebuilds = rebuilds();
+        mButton.setText("Ring");
+        mButton.draw(mCanvas);
+        mButton.draw(mCanvas);
+        assertEquals(rebuilds + 1, rebuilds());
+    }
+
+    public void testResizeRebuildsOnce() {
+        mButton.draw(mCanvas);
+        long rebuilds = rebuilds();
+        layout(SIZE / 2);
+        mButton.draw(mCanvas);
+        mButton.draw(mCanvas);
+        assertEquals(rebuilds + 1, rebuilds());
+    }
+}
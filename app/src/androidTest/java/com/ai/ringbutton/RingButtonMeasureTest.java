@@ -0,0 +1,68 @@
+package com.ai.ringbutton;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * Checks that RingButton honors every MeasureSpec mode, with and without
+ * externalDiameter.
+ */
+public class RingButtonMeasureTest extends AndroidTestCase {
+
+    private static final int SIZE = 300;
+    private static final int DIAMETER = 200;
+
+    private RingButton mButton;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mButton = new RingButton(getContext());
+    }
+
+    private void measure(int mode, int size) {
+        int spec = View.MeasureSpec.makeMeasureSpec(size, mode);
+        mButton.measure(spec, spec);
+    }
+
+    public void testExactSizeWinsOverExternalDiameter() {
+        mButton.setExternalDiameter(DIAMETER);
+        measure(View.MeasureSpec.EXACTLY, SIZE);
+        assertEquals(SIZE, mButton.getMeasuredWidth());
+        assertEquals(SIZE, mButton.getMeasuredHeight());
+
+        // the ring keeps its diameter, centered in the larger view
+        mButton.layout(0, 0, SIZE, SIZE);
+        float center = SIZE / 2f;
+        assertTrue(mButton.isPointInRing(center, center - DIAMETER / 2f + 1));
+        assertFalse(mButton.isPointInRing(center, center - DIAMETER / 2f - 1));
+
+        // a smaller exact size shrinks the ring
+        measure(View.MeasureSpec.EXACTLY, DIAMETER / 2);
+        assertEquals(DIAMETER / 2, mButton.getMeasuredWidth());
+        mButton.layout(0, 0, DIAMETER / 2, DIAMETER / 2);
+        assertTrue(mButton.isPointInRing(DIAMETER / 4f, 1));
+    }
+
+    public void testExternalDiameterIsLimitedByAtMost() {
+        mButton.setExternalDiameter(DIAMETER);
+        measure(View.MeasureSpec.AT_MOST, SIZE);
+        assertEquals(DIAMETER, mButton.getMeasuredWidth());
+        measure(View.MeasureSpec.AT_MOST, DIAMETER / 2);
+        assertEquals(DIAMETER / 2, mButton.getMeasuredWidth());
+        measure(View.MeasureSpec.UNSPECIFIED, 0);
+        assertEquals(DIAMETER, mButton.getMeasuredWidth());
+    }
+
+    public void testWrapContentWithoutText() {
+        mButton.setText("");
+        measure(View.MeasureSpec.AT_MOST, SIZE);
+        int empty = mButton.getMeasuredWidth();
+        // the stroke is still as wide as a line of text is high
+        assertTrue(empty > 0 && empty <= SIZE);
+
+        mButton.setText("A much longer text along the ring");
+        measure(View.MeasureSpec.AT_MOST, SIZE);
+        assertTrue(mButton.getMeasuredWidth() > empty);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ai.ringbutton;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.ViewGroup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress updates from a background thread reach a view that is not
+ * attached to a window, and reach an attached view at most once per frame.
+ */
+public class RingButtonProgressTest extends ActivityInstrumentationTestCase2<MainActivity> {
+
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final int SIZE = 300;
+    private static final long BURST_NANOS = 500000000L;
+    // shortest frame of a 120 Hz display
+    private static final long MIN_FRAME_NANOS = 8000000L;
+    private static final long POLL_MILLIS = 10;
+
+    private RingButton mButton;
+
+    public RingButtonProgressTest() {
+        super(MainActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mButton = new RingButton(getInstrumentation().getTargetContext());
+    }
+
+    /**
+     * Waits until the main looper ran everything posted so far.
+     */
+    private static void drainMainLooper() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    public void testBackgroundUpdateOfDetachedViewIsApplied() throws Exception {
+        assertFalse(Looper.myLooper() == Looper.getMainLooper());
+        mButton.setProgress(0.5f);
+        drainMainLooper();
+        assertEquals(0.5f, mButton.getProgress(), 0);
+    }
+
+    public void testLaterUpdatesAreNotDropped() throws Exception {
+        for (int i = 1; i <= 10; i++) {
+            mButton.setProgress(i / 10f);
+            drainMainLooper();
+            assertEquals(i / 10f, mButton.getProgress(), 0);
+        }
+    }
+
+    /**
+     * Waits until the attached button drew the given progress; frame
+     * callbacks run at the next vsync, not when the looper is idle.
+     */
+    private static void awaitProgress(RingButton button, float progress)
+            throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_SECONDS * 1000;
+        while (button.getProgress() != progress && SystemClock.uptimeMillis() < deadline) {
+            Thread.sleep(POLL_MILLIS);
+        }
+        assertEquals(progress, button.getProgress(), 0);
+    }
+
+    public void testAttachedBurstAppliesOncePerFrame() throws Exception {
+        final Activity activity = getActivity();
+        final RingButton button = mButton;
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                button.setMetricsEnabled(true);
+                activity.setContentView(button, new ViewGroup.LayoutParams(SIZE, SIZE));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        button.getMetrics().reset();
+
+        int updates = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            // every value differs from the previous one
+            button.setProgress((updates % 100 + 1) / 100f);
+            updates++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BURST_NANOS);
+        button.setProgress(0.42f);
+        awaitProgress(button, 0.42f);
+        elapsed = System.nanoTime() - start;
+
+        long applied = button.getMetrics().snapshot()
+                .getInvalidationCount(RingMetrics.SETTER_PROGRESS);
+        assertTrue(applied > 0);
+        assertTrue(applied + " updates applied in " + elapsed / 1000000 + " ms",
+                applied <= elapsed / MIN_FRAME_NANOS + 2);
+        assertTrue(updates > applied);
+    }
+
+    public void testBurstAppliesLatestValue() throws Exception {
+        for (int i = 0; i <= 100; i++) {
+            mButton.setProgress(i / 100f);
+        }
+        drainMainLooper();
+        assertEquals(1f, mButton.getProgress(), 0);
+    }
+}
@@ -0,0 +1,211 @@
+package com.ai.ringbutton;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips RingButton state through a Parcel and checks how many bytes
+ * each changed property costs.
+ */
+public class RingButtonSavedStateTest extends AndroidTestCase {
+
+    private static final String TAG = "RingButtonSavedState";
+
+    // bytes of an int or float in a Parcel
+    private static final int SLOT = 4;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private RingButton mButton;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mButton = new RingButton(getContext());
+    }
+
+    /**
+     * Sets the progress from this thread and waits until the main looper
+     * applied it.
+     */
+    private static void setProgress(RingButton button, float progress)
+            throws InterruptedException {
+        button.setProgress(progress);
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private static Parcel write(Parcelable state) {
+        Parcel parcel = Parcel.obtain();
+        state.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        return parcel;
+    }
+
+    private static int parceledSize(RingButton button) {
+        Parcel parcel = write(button.onSaveInstanceState());
+        try {
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Saves the button, parcels the state and restores it into a new button.
+     */
+    private RingButton roundTrip(RingButton button, RingButton target) {
+        Parcel parcel = write(button.onSaveInstanceState());
+        try {
+            RingButton.SavedState state = RingButton.SavedState.CREATOR.createFromParcel(parcel);
+            target.onRestoreInstanceState(state);
+            return target;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    public void testDefaultStateParcelsOnlySuperState() {
+        assertFalse(mButton.onSaveInstanceState() instanceof RingButton.SavedState);
+    }
+
+    public void testRoundTripRestoresProperties() throws Exception {
+        mButton.setText("Saved");
+        mButton.setTextColor(0xFF102030);
+        mButton.setRingBackgroundColor(0x80405060);
+        mButton.setExternalDiameter(321);
+        mButton.setInternalDiameter(123);
+        mButton.setShadowLayer(3, 1, 2, 0xFF000000);
+        mButton.setTextRenderMode(RingButton.TEXT_RENDER_MODE_GLYPHS);
+        mButton.setBitmapCacheEnabled(true);
+        mButton.setColorAnimationDuration(77);
+        mButton.setMarqueeDirection(RingButton.MARQUEE_DIRECTION_COUNTERCLOCKWISE);
+        mButton.setMarqueeSpeed(45);
+        setProgress(mButton, 0.25f);
+        mButton.setElegantTextHeight(true);
+
+        RingButton restored = roundTrip(mButton, new RingButton(getContext()));
+        assertEquals("Saved", restored.getText());
+        assertEquals(0xFF102030, restored.getTextColor());
+        assertEquals(0x80405060, restored.getRingBackgroundColor());
+        assertEquals(321, restored.getExternalDiameter());
+        assertEquals(123, restored.getInternalDiameter());
+        assertEquals(3f, restored.getShadowRadius(), 0);
+        assertEquals(2f, restored.getShadowDy(), 0);
+        assertEquals(RingButton.TEXT_RENDER_MODE_GLYPHS, restored.getTextRenderMode());
+        assertTrue(restored.isBitmapCacheEnabled());
+        assertEquals(77, restored.getColorAnimationDuration());
+        assertEquals(RingButton.MARQUEE_DIRECTION_COUNTERCLOCKWISE,
+                restored.getMarqueeDirection());
+        assertEquals(45f, restored.getMarqueeSpeed(), 0);
+        assertEquals(0.25f, restored.getProgress(), 0);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            assertTrue(restored.getPaint().isElegantTextHeight());
+        }
+    }
+
+    public void testBooleansAreRestoredNotToggled() {
+        mButton.setBitmapCacheEnabled(true);
+        mButton.setElegantTextHeight(true);
+
+        // the target already has the saved values, restoring must keep them
+        RingButton target = new RingButton(getContext());
+        target.setBitmapCacheEnabled(true);
+        target.setElegantTextHeight(true);
+        roundTrip(mButton, target);
+        assertTrue(target.isBitmapCacheEnabled());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            assertTrue(target.getPaint().isElegantTextHeight());
+        }
+
+        // restoring twice is the same as restoring once
+        roundTrip(mButton, target);
+        assertTrue(target.isBitmapCacheEnabled());
+    }
+
+    public void testOtherVersionIsSkipped() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeParcelable(null, 0);
+        // size, version, flags and a property of an unknown layout
+        parcel.writeInt(4 * SLOT);
+        parcel.writeInt(-1);
+        parcel.writeInt(RingState.TEXT_COLOR);
+        parcel.writeInt(0xFFFF0000);
+        parcel.writeInt(0x5EED);
+        parcel.setDataPosition(0);
+        RingButton.SavedState state = RingButton.SavedState.CREATOR.createFromParcel(parcel);
+        assertEquals(0x5EED, parcel.readInt());
+        parcel.recycle();
+
+        assertEquals(0, state.flags);
+        int color = mButton.getTextColor();
+        mButton.onRestoreInstanceState(state);
+        assertEquals(color, mButton.getTextColor());
+
+        // the skipped state can be parceled again
+        write(state).recycle();
+    }
+
+    /**
+     * Checks the bytes of the header and of each changed property, and logs
+     * them. Only changed properties are parceled.
+     */
+    public void testParceledSizePerProperty() throws Exception {
+        RingButton button = new RingButton(getContext());
+        button.setRingBackgroundColor(~button.getRingBackgroundColor());
+        int header = parceledSize(button) - SLOT;
+        Log.i(TAG, "header " + header + " bytes");
+
+        button = new RingButton(getContext());
+        setProgress(button, 0.5f);
+        assertSize("progress", header + SLOT, button);
+
+        button = new RingButton(getContext());
+        button.setBitmapCacheEnabled(!button.isBitmapCacheEnabled());
+        assertSize("bitmapCacheEnabled", header + SLOT, button);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            button = new RingButton(getContext());
+            button.setElegantTextHeight(!button.getPaint().isElegantTextHeight());
+            assertSize("elegantTextHeight", header + SLOT, button);
+        }
+
+        button = new RingButton(getContext());
+        button.setShadowLayer(3, 1, 2, 0xFF000000);
+        assertSize("shadow", header + 4 * SLOT, button);
+
+        button = new RingButton(getContext());
+        button.setMarqueeSpeed(30);
+        assertSize("marquee", header + 2 * SLOT, button);
+
+        button = new RingButton(getContext());
+        button.setText("Ring");
+        // length, then UTF-16 with a terminating NUL, padded to 4 bytes
+        assertSize("text", header + SLOT + ((("Ring".length() + 1) * 2 + 3) & ~3), button);
+
+        button = new RingButton(getContext());
+        setProgress(button, 0.5f);
+        button.setRingBackgroundColor(~button.getRingBackgroundColor());
+        button.setTextColor(~button.getTextColor());
+        assertSize("progress and colors", header + 3 * SLOT, button);
+    }
+
+    private static void assertSize(String property, int expected, RingButton button) {
+        int size = parceledSize(button);
+        Log.i(TAG, property + " " + size + " bytes");
+        assertEquals(property, expected, size);
+    }
+}
@@ -0,0 +1,54 @@
+package com.ai.ringbutton;
+
+import android.graphics.Typeface;
+import android.test.AndroidTestCase;
+
+import com.ai.ringbutton.render.RingSpec;
+
+/**
+ * Checks that {@link RingButton#toRingSpec()} describes the ring as drawn.
+ */
+public class RingButtonSpecTest extends AndroidTestCase {
+
+    public void testSpecCopiesDrawnProperties() {
+        RingButton button = new RingButton(getContext());
+        button.setText("Spec");
+        button.setTextSize(18);
+        button.setRingBackgroundColor(0xFF112233);
+        button.setTextColor(0xFF445566);
+        button.setInternalDiameter(40);
+        button.setShadowLayer(2, 1, 3, 0xFF000000);
+        button.setProgressColor(0x80FF0000);
+        button.addSegment(0, 90, 0xFF00FF00, "Q1");
+        button.addSegment(180, 45, 0xFF0000FF, null);
+
+        RingSpec spec = button.toRingSpec();
+        assertEquals("Spec", spec.getText());
+        assertEquals(button.getPaint().getTextSize(), spec.getTextSize(), 0);
+        assertEquals(0xFF112233, spec.getRingColor());
+        assertEquals(0xFF445566, spec.getTextColor());
+        assertEquals(40, spec.getInternalDiameter());
+        assertEquals(3f, spec.getShadowDy(), 0);
+        assertEquals(0x80FF0000, spec.getProgressColor());
+        assertEquals(0f, spec.getProgress(), 0);
+        assertEquals(2, spec.getSegmentCount());
+        assertEquals(90f, spec.getSegmentSweepAngle(0), 0);
+        assertEquals("Q1", spec.getSegmentLabel(0));
+        assertEquals(180f, spec.getSegmentStartAngle(1), 0);
+        assertEquals(0xFF0000FF, spec.getSegmentColor(1));
+        assertNull(spec.getSegmentLabel(1));
+
+        // later changes don't leak into the spec
+        button.clearSegments();
+        assertEquals(2, spec.getSegmentCount());
+    }
+
+    public void testSpecNamesTheFontFamily() {
+        RingButton button = new RingButton(getContext());
+        assertEquals(RingTypefaces.DEFAULT_FAMILY, button.toRingSpec().getFontFamily());
+        button.setTypeface(Typeface.MONOSPACE);
+        assertEquals("monospace", button.toRingSpec().getFontFamily());
+        button.setTypeface(RingTypefaces.create("serif", Typeface.BOLD));
+        assertEquals("serif", button.toRingSpec().getFontFamily());
+    }
+}
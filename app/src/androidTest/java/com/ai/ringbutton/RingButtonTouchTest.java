@@ -0,0 +1,165 @@
+package com.ai.ringbutton;
+
+import android.app.Activity;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+
+/**
+ * Drives touch gestures through an attached RingButton: taps on the ring
+ * click, taps in the hole fall through, and the touch pipeline allocates
+ * nothing per event once warmed up.
+ */
+public class RingButtonTouchTest extends ActivityInstrumentationTestCase2<MainActivity> {
+
+    private static final int SIZE = 300;
+    private static final int WARM_UP_GESTURES = 20;
+    private static final int COUNTED_GESTURES = 50;
+
+    private RingButton mButton;
+    private int mClicks;
+    private int mAllocations;
+    private boolean mDownHandled;
+
+    private MotionEvent mDownInRing;
+    private MotionEvent mMoveInRing;
+    private MotionEvent mUpInRing;
+    private MotionEvent mDownInHole;
+    private MotionEvent mUpInHole;
+
+    public RingButtonTouchTest() {
+        super(MainActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        setActivityInitialTouchMode(true);
+        final Activity activity = getActivity();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mButton = new RingButton(activity) {
+                    @Override
+                    public boolean performClick() {
+                        mClicks++;
+                        return super.performClick();
+                    }
+                };
+                mButton.setText("RingButton");
+                mButton.setColorAnimationDuration(0);
+                activity.setContentView(mButton, new ViewGroup.LayoutParams(SIZE, SIZE));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        float center = SIZE / 2f;
+        float ringY = center - mButton.getTextRadius();
+        long now = SystemClock.uptimeMillis();
+        mDownInRing = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, center, ringY, 0);
+        mMoveInRing = MotionEvent.obtain(now, now + 10, MotionEvent.ACTION_MOVE,
+                center + 1, ringY, 0);
+        mUpInRing = MotionEvent.obtain(now, now + 20, MotionEvent.ACTION_UP, center + 1, ringY, 0);
+        mDownInHole = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, center, center, 0);
+        mUpInHole = MotionEvent.obtain(now, now + 20, MotionEvent.ACTION_UP, center, center, 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDownInRing.recycle();
+        mMoveInRing.recycle();
+        mUpInRing.recycle();
+        mDownInHole.recycle();
+        mUpInHole.recycle();
+        super.tearDown();
+    }
+
+    /**
+     * Dispatches the events in one UI thread message and counts what the
+     * UI thread allocated meanwhile. The posted click runs afterwards.
+     */
+    private void dispatch(final MotionEvent... events) {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Debug.resetThreadAllocCount();
+                mDownHandled = mButton.dispatchTouchEvent(events[0]);
+                for (int i = 1; i < events.length; i++) {
+                    mButton.dispatchTouchEvent(events[i]);
+                }
+                mAllocations += Debug.getThreadAllocCount();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testTapOnRingClicks() {
+        dispatch(mDownInRing, mMoveInRing, mUpInRing);
+        assertTrue(mDownHandled);
+        assertEquals(1, mClicks);
+        assertFalse(mButton.isPressed());
+    }
+
+    public void testTapInHoleFallsThrough() {
+        dispatch(mDownInHole);
+        assertFalse(mDownHandled);
+        assertEquals(0, mClicks);
+        assertFalse(mButton.isPressed());
+    }
+
+    public void testReleaseInHoleCancels() {
+        dispatch(mDownInRing, mMoveInRing, mUpInHole);
+        assertTrue(mDownHandled);
+        assertEquals(0, mClicks);
+        assertFalse(mButton.isPressed());
+    }
+
+    public void testSelfListenerDoesNotUndoClick() {
+        final int ringColor = mButton.getRingBackgroundColor();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mButton.setOnClickListener(mButton);
+            }
+        });
+        dispatch(mDownInRing, mMoveInRing, mUpInRing);
+        assertEquals(1, mClicks);
+        assertEquals(ringColor, mButton.getTextColor());
+    }
+
+    /**
+     * The thread allocation counter counts only while allocation counting
+     * is on, and the switch has no replacement that is not deprecated.
+     */
+    @SuppressWarnings("deprecation")
+    private static void setAllocCounting(boolean enabled) {
+        if (enabled) {
+            Debug.startAllocCounting();
+        } else {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    public void testTouchPipelineDoesNotAllocate() {
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            dispatch(mDownInRing, mMoveInRing, mUpInRing);
+            dispatch(mDownInRing, mUpInHole);
+            dispatch(mDownInHole);
+        }
+        setAllocCounting(true);
+        try {
+            mAllocations = 0;
+            for (int i = 0; i < COUNTED_GESTURES; i++) {
+                dispatch(mDownInRing, mMoveInRing, mUpInRing);
+                dispatch(mDownInRing, mUpInHole);
+                dispatch(mDownInHole);
+            }
+        } finally {
+            setAllocCounting(false);
+        }
+        assertEquals(0, mAllocations);
+        assertEquals(WARM_UP_GESTURES + COUNTED_GESTURES, mClicks);
+    }
+}
@@ -0,0 +1,180 @@
+package com.ai.ringbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import java.util.Random;
+
+/**
+ * Checks the tap index of RingGroup against a linear search and compares
+ * drawing and hit-testing N rings in one RingGroup with N RingButtons.
+ */
+public class RingGroupTest extends AndroidTestCase {
+
+    private static final String TAG = "RingGroupTest";
+
+    private static final int SIZE = 800;
+    private static final int RINGS = 200;
+    private static final int GRID = 20;
+    private static final int CELL = SIZE / GRID;
+    private static final int DRAWS = 20;
+    private static final int TAPS = 10000;
+
+    private Random mRandom;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRandom = new Random(42);
+    }
+
+    /**
+     * Topmost ring containing the point, by checking every ring.
+     */
+    private static RingGroup.Ring findLinear(RingGroup group, float x, float y) {
+        for (int i = group.getRingCount() - 1; i >= 0; i--) {
+            RingGroup.Ring ring = group.getRingAt(i);
+            float dx = x - ring.getCenterX();
+            float dy = y - ring.getCenterY();
+            float outer = ring.getExternalDiameter() / 2f;
+            float inner = ring.getInternalDiameter() >= 0 ? ring.getInternalDiameter() / 2f
+                    : outer * RingButton.INTERNAL_DIAMETER_FRACTION;
+            float d2 = dx * dx + dy * dy;
+            if (d2 <= outer * outer && d2 >= inner * inner) {
+                return ring;
+            }
+        }
+        return null;
+    }
+
+    public void testIndexMatchesLinearSearch() {
+        RingGroup group = new RingGroup(getContext());
+        for (int i = 0; i < RINGS; i++) {
+            // overlapping rings of very different sizes
+            int diameter = mRandom.nextInt(10) == 0 ? 400 + mRandom.nextInt(400)
+                    : 10 + mRandom.nextInt(80);
+            group.addRing(mRandom.nextFloat() * SIZE, mRandom.nextFloat() * SIZE, diameter);
+        }
+        for (int i = 0; i < TAPS; i++) {
+            float x = mRandom.nextFloat() * SIZE;
+            float y = mRandom.nextFloat() * SIZE;
+            assertSame(findLinear(group, x, y), group.findRingAt(x, y));
+        }
+
+        // moving a ring updates the index
+        RingGroup.Ring ring = group.getRingAt(0);
+        ring.setCenter(-1000, -1000).setExternalDiameter(100).setInternalDiameter(0);
+        assertSame(ring, group.findRingAt(-1000, -1000));
+    }
+
+    public void testRingStyleOverridesGroupDefaults() {
+        RingGroup group = new RingGroup(getContext());
+        RingGroup.Ring plain = group.addRing(50, 50, 100);
+        RingGroup.Ring styled = group.addRing(150, 50, 100)
+                .setTypeface(Typeface.MONOSPACE)
+                .setShadowLayer(2, 1, 1, 0xFF000000);
+        group.setTypeface(Typeface.SERIF);
+        assertNull(plain.getTypeface());
+        assertSame(Typeface.MONOSPACE, styled.getTypeface());
+        assertEquals(0f, plain.getShadowRadius(), 0);
+        assertEquals(2f, styled.getShadowRadius(), 0);
+        float defaultSize = RingButton.getDefaultTextSize(getContext().getResources()
+                .getDisplayMetrics());
+        assertEquals(defaultSize, plain.getTextSize(), 0);
+        assertEquals(defaultSize, new RingButton(getContext()).getTextSize(), 0);
+
+        layoutAndDraw(group);
+    }
+
+    private static Bitmap layoutAndDraw(View view) {
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, SIZE, SIZE);
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static String label(int i) {
+        return "Ring " + i;
+    }
+
+    /**
+     * Logs the time to lay out and draw a grid of rings, and to hit-test
+     * it, as one RingGroup and as RingButtons in a FrameLayout.
+     */
+    public void testBenchmarkAgainstSeparateViews() {
+        RingGroup group = new RingGroup(getContext());
+        FrameLayout frame = new FrameLayout(getContext());
+        for (int i = 0; i < RINGS; i++) {
+            int left = (i % GRID) * CELL;
+            int top = (i / GRID) * CELL;
+            group.addRing(left + CELL / 2f, top + CELL / 2f, CELL).setText(label(i));
+
+            RingButton button = new RingButton(getContext());
+            button.setTextRenderMode(RingButton.TEXT_RENDER_MODE_GLYPHS);
+            button.setText(label(i));
+            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(CELL, CELL);
+            params.leftMargin = left;
+            params.topMargin = top;
+            frame.addView(button, params);
+        }
+        // warm up layouts and text measurements
+        layoutAndDraw(group);
+        layoutAndDraw(frame);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < DRAWS; i++) {
+            group.invalidate();
+            group.requestLayout();
+            layoutAndDraw(group).recycle();
+        }
+        long groupDraw = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < DRAWS; i++) {
+            frame.invalidate();
+            frame.requestLayout();
+            layoutAndDraw(frame).recycle();
+        }
+        long viewsDraw = System.nanoTime() - start;
+
+        int hits = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < TAPS; i++) {
+            if (group.findRingAt(i % SIZE, (i * 7) % SIZE) != null) {
+                hits++;
+            }
+        }
+        long groupTaps = System.nanoTime() - start;
+
+        int viewHits = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < TAPS; i++) {
+            float x = i % SIZE;
+            float y = (i * 7) % SIZE;
+            // what a parent does to find the touched child
+            for (int c = frame.getChildCount() - 1; c >= 0; c--) {
+                RingButton button = (RingButton) frame.getChildAt(c);
+                if (x >= button.getLeft() && x < button.getRight()
+                        && y >= button.getTop() && y < button.getBottom()
+                        && button.isPointInRing(x - button.getLeft(), y - button.getTop())) {
+                    viewHits++;
+                    break;
+                }
+            }
+        }
+        long viewsTaps = System.nanoTime() - start;
+
+        Log.i(TAG, RINGS + " rings: draw " + groupDraw / DRAWS / 1000 + " us (group) vs "
+                + viewsDraw / DRAWS / 1000 + " us (views), tap "
+                + groupTaps / TAPS + " ns (group) vs " + viewsTaps / TAPS + " ns (views)");
+        assertTrue(hits > 0);
+        assertTrue(viewHits > 0);
+    }
+}
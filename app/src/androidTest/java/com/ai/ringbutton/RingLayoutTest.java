@@ -0,0 +1,133 @@
+package com.ai.ringbutton;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * Checks that RingLayout places its children on the ring centerline as the
+ * child count changes, and that it measures only the children that need it.
+ */
+public class RingLayoutTest extends AndroidTestCase {
+
+    private static final int SIZE = 400;
+    // centerline radius of a 400 px ring with the default internal diameter
+    private static final float RADIUS = 125;
+    private static final int CHILD = 20;
+    // View.measure may skip onMeasure for specs it has seen, so children are
+    // marked with this size instead: a measure by the layout undoes it
+    private static final int MARK = 1;
+
+    private RingLayout mLayout;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mLayout = new RingLayout(getContext());
+    }
+
+    private View addChild() {
+        View child = new View(getContext());
+        mLayout.addView(child, new RingLayout.LayoutParams(CHILD, CHILD));
+        return child;
+    }
+
+    private void measureAndLayout() {
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        mLayout.measure(spec, spec);
+        mLayout.layout(0, 0, SIZE, SIZE);
+    }
+
+    /**
+     * Measures the children at the mark size, which only a later measure
+     * changes.
+     */
+    private static void mark(View... children) {
+        int spec = View.MeasureSpec.makeMeasureSpec(MARK, View.MeasureSpec.EXACTLY);
+        for (View child : children) {
+            child.measure(spec, spec);
+        }
+    }
+
+    private static void assertCenteredAt(View child, float angle) {
+        double radians = Math.toRadians(angle);
+        float x = SIZE / 2f + RADIUS * (float) Math.sin(radians);
+        float y = SIZE / 2f - RADIUS * (float) Math.cos(radians);
+        assertEquals(angle + " x", x, (child.getLeft() + child.getRight()) / 2f, 1);
+        assertEquals(angle + " y", y, (child.getTop() + child.getBottom()) / 2f, 1);
+    }
+
+    public void testAngleTableFollowsChildCount() {
+        View[] children = new View[4];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = addChild();
+        }
+        measureAndLayout();
+        for (int i = 0; i < children.length; i++) {
+            assertCenteredAt(children[i], i * 90);
+        }
+
+        mLayout.removeView(children[3]);
+        measureAndLayout();
+        for (int i = 0; i < 3; i++) {
+            assertCenteredAt(children[i], i * 120);
+        }
+
+        // gone children take no position
+        children[1].setVisibility(View.GONE);
+        measureAndLayout();
+        assertCenteredAt(children[0], 0);
+        assertCenteredAt(children[2], 180);
+
+        // a table for more children than before
+        children[1].setVisibility(View.VISIBLE);
+        mLayout.addView(children[3]);
+        View fifth = addChild();
+        measureAndLayout();
+        assertCenteredAt(children[0], 0);
+        assertCenteredAt(children[3], 216);
+        assertCenteredAt(fifth, 288);
+    }
+
+    public void testAddingOrRemovingDoesNotRemeasureOthers() {
+        View first = addChild();
+        View second = addChild();
+        measureAndLayout();
+        assertEquals(CHILD, first.getMeasuredWidth());
+
+        mark(first, second);
+        View third = addChild();
+        measureAndLayout();
+        assertEquals(MARK, first.getMeasuredWidth());
+        assertEquals(MARK, second.getMeasuredWidth());
+        assertEquals(CHILD, third.getMeasuredWidth());
+
+        mark(first, third);
+        mLayout.removeView(second);
+        measureAndLayout();
+        assertEquals(MARK, first.getMeasuredWidth());
+        assertEquals(MARK, third.getMeasuredWidth());
+
+        // a child that asks for a layout is measured again
+        first.requestLayout();
+        measureAndLayout();
+        assertEquals(CHILD, first.getMeasuredWidth());
+        assertEquals(MARK, third.getMeasuredWidth());
+    }
+
+    public void testReaddedChildIsRemeasured() {
+        View child = addChild();
+        addChild();
+        measureAndLayout();
+        assertEquals(CHILD, child.getMeasuredWidth());
+
+        RingLayout.LayoutParams params = (RingLayout.LayoutParams) child.getLayoutParams();
+        mLayout.removeView(child);
+        measureAndLayout();
+        mark(child);
+
+        // back with the params it was measured with
+        mLayout.addView(child, params);
+        measureAndLayout();
+        assertEquals(CHILD, child.getMeasuredWidth());
+    }
+}
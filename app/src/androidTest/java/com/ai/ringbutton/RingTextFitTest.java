@@ -0,0 +1,114 @@
+package com.ai.ringbutton;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.test.AndroidTestCase;
+import android.text.TextPaint;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the text sizes {@link RingTextFitter#fit} finds against
+ * {@link TextPaint#measureText(String)}. The fitter is main-thread only, so
+ * every fit runs on the main looper.
+ */
+public class RingTextFitTest extends AndroidTestCase {
+
+    private static final String TEXT = "RingButton";
+    private static final float MIN_SIZE = 8;
+    private static final float MAX_SIZE = 64;
+    // the search stops once the interval is narrower than this
+    private static final float PRECISION = 0.5f;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private TextPaint mPaint;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        runOnMainLooper(new Runnable() {
+            @Override
+            public void run() {
+                RingTextFitter.clearCache();
+            }
+        });
+    }
+
+    private static void runOnMainLooper(final Runnable task) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    latch.countDown();
+                }
+            }
+        });
+        assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private float fit(final String text, final float available, final float minSize,
+                      final float maxSize) throws InterruptedException {
+        final float[] size = new float[1];
+        runOnMainLooper(new Runnable() {
+            @Override
+            public void run() {
+                size[0] = RingTextFitter.fit(mPaint, text, available, minSize, maxSize);
+            }
+        });
+        return size[0];
+    }
+
+    private float widthAt(float textSize) {
+        mPaint.setTextSize(textSize);
+        return mPaint.measureText(TEXT);
+    }
+
+    public void testFitsAtBoundary() throws InterruptedException {
+        for (float available : new float[] {60, 123.4f, 250}) {
+            float size = fit(TEXT, available, MIN_SIZE, MAX_SIZE);
+            assertTrue(size > MIN_SIZE && size < MAX_SIZE);
+            // the text fits at the found size but not a search step above it
+            assertTrue(available + " at " + size, widthAt(size) <= available);
+            assertTrue(available + " at " + size, widthAt(size + PRECISION) > available);
+        }
+    }
+
+    public void testClampsToMinAndMax() throws InterruptedException {
+        // too short even at the minimum size
+        assertEquals(MIN_SIZE, fit(TEXT, 1, MIN_SIZE, MAX_SIZE), 0);
+
+        // room for more than the maximum size
+        float size = fit(TEXT, 100000, MIN_SIZE, MAX_SIZE);
+        assertTrue(size <= MAX_SIZE && size >= MAX_SIZE - PRECISION);
+
+        // an empty range and empty text are not searched
+        assertEquals(20f, fit(TEXT, 100, 20, 20), 0);
+        assertEquals(MAX_SIZE, fit(TEXT, 100, MAX_SIZE, MIN_SIZE), 0);
+        assertEquals(MAX_SIZE, fit("", 100, MIN_SIZE, MAX_SIZE), 0);
+    }
+
+    public void testEqualKeysHitTheCache() throws InterruptedException {
+        float size = fit(TEXT, 150, MIN_SIZE, MAX_SIZE);
+
+        // a hit returns the same size without touching the paint
+        mPaint.setTextSize(1);
+        assertEquals(size, fit(TEXT, 150, MIN_SIZE, MAX_SIZE), 0);
+        assertEquals(1f, mPaint.getTextSize(), 0);
+        // lengths are rounded to whole pixels for the key
+        assertEquals(size, fit(TEXT, 150.2f, MIN_SIZE, MAX_SIZE), 0);
+        assertEquals(1f, mPaint.getTextSize(), 0);
+
+        // another style is searched again
+        mPaint.setTypeface(Typeface.MONOSPACE);
+        float monospace = fit(TEXT, 150, MIN_SIZE, MAX_SIZE);
+        assertTrue(mPaint.getTextSize() != 1f);
+        assertTrue(widthAt(monospace) <= 150);
+    }
+}
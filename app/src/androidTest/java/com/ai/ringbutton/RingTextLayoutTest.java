@@ -0,0 +1,147 @@
+package com.ai.ringbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.test.AndroidTestCase;
+import android.text.TextPaint;
+import android.view.View;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares layouts precomputed on a worker thread with the inline layout
+ * RingButton does on the UI thread.
+ */
+public class RingTextLayoutTest extends AndroidTestCase {
+
+    private static final String[] TEXTS = {
+        "RingButton", "i", "WWWWWWWW", "A\uD83D\uDE00B", "Ring text along a long circle",
+    };
+    private static final float[] RADII = {30, 75.5f, 200};
+    private static final float[] TEXT_SIZES = {12, 18.5f, 32};
+    private static final int SIZE = 240;
+
+    private ExecutorService mExecutor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mExecutor.shutdownNow();
+        super.tearDown();
+    }
+
+    private static TextPaint paint(float textSize) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(textSize);
+        return paint;
+    }
+
+    private static void assertSameLayout(String text, TextPaint paint, float radius,
+                                         RingTextLayout layout) {
+        char[] chars = text.toCharArray();
+        float[] widths = new float[chars.length];
+        float[] angles = new float[chars.length];
+        RingTextLayout.computeGlyphAngles(paint, chars, radius, widths, angles);
+        for (int i = 0; i < chars.length; i++) {
+            assertEquals(text + " glyph " + i, angles[i], layout.getGlyphAngle(i), 0);
+        }
+        assertEquals(RingTextLayout.computeVOffset(paint), layout.getVOffset(), 0);
+        assertEquals(radius, layout.getRadius(), 0);
+        assertEquals(text, layout.getText());
+    }
+
+    public void testPrecomputedEqualsInline() throws Exception {
+        for (String text : TEXTS) {
+            for (float radius : RADII) {
+                for (float textSize : TEXT_SIZES) {
+                    TextPaint paint = paint(textSize);
+                    RingTextLayout layout =
+                            RingTextLayout.precompute(mExecutor, text, paint, radius).get();
+                    assertSameLayout(text, paint, radius, layout);
+                    assertTrue(layout.matches(radius, paint));
+                }
+            }
+        }
+    }
+
+    public void testPrecomputedEqualsInlineForStyledPaint() throws Exception {
+        TextPaint paint = paint(20);
+        paint.setTypeface(Typeface.create(Typeface.SERIF, Typeface.BOLD_ITALIC));
+        paint.setTextScaleX(1.25f);
+        paint.setFakeBoldText(true);
+        RingTextLayout layout = RingTextLayout.precompute(mExecutor, TEXTS[0], paint, 80).get();
+        assertSameLayout(TEXTS[0], paint, 80, layout);
+    }
+
+    public void testPaintChangesAfterPrecomputeAreIgnored() throws Exception {
+        TextPaint paint = paint(18);
+        Future<RingTextLayout> future =
+                RingTextLayout.precompute(mExecutor, TEXTS[0], paint, 80);
+        paint.setTextSize(40);
+        RingTextLayout layout = future.get();
+        assertSameLayout(TEXTS[0], paint(18), 80, layout);
+        assertFalse(layout.matches(80, paint));
+    }
+
+    public void testMatchesRejectsChangedInputs() {
+        TextPaint paint = paint(18);
+        RingTextLayout layout = RingTextLayout.create(TEXTS[0], paint, 80);
+        assertTrue(layout.matches(80, paint));
+        assertFalse(layout.matches(81, paint));
+
+        TextPaint other = new TextPaint(paint);
+        other.setTypeface(Typeface.MONOSPACE);
+        assertFalse(layout.matches(80, other));
+
+        other = new TextPaint(paint);
+        other.setTextSkewX(-0.25f);
+        assertFalse(layout.matches(80, other));
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            other = new TextPaint(paint);
+            other.setLetterSpacing(0.1f);
+            assertFalse(layout.matches(80, other));
+
+            other = new TextPaint(paint);
+            other.setFontFeatureSettings("smcp");
+            assertFalse(layout.matches(80, other));
+        }
+    }
+
+    public void testRingButtonDrawsPrecomputedTextLikeInline() throws Exception {
+        RingButton inline = newButton();
+        inline.setText(TEXTS[4]);
+        RingButton precomputed = newButton();
+        RingTextLayout layout = RingTextLayout.precompute(mExecutor, TEXTS[4],
+                precomputed.getPaint(), precomputed.getTextRadius()).get();
+        precomputed.setPrecomputedText(layout);
+
+        assertTrue(draw(inline).sameAs(draw(precomputed)));
+    }
+
+    private RingButton newButton() {
+        RingButton button = new RingButton(getContext());
+        button.setTextRenderMode(RingButton.TEXT_RENDER_MODE_GLYPHS);
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        button.measure(spec, spec);
+        button.layout(0, 0, SIZE, SIZE);
+        return button;
+    }
+
+    private static Bitmap draw(RingButton button) {
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        button.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ai.ringbutton;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.text.TextPaint;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+import com.ai.ringbutton.render.RingSurface;
+
+/**
+ * {@link RingSurface} drawing onto an android.graphics.Canvas with the
+ * paints of the owning view. The text paint must be center-aligned.
+ * <p>
+ * The canvas is set per draw with {@link #wrap(Canvas)}; nothing is
+ * allocated while drawing.
+ */
+final class CanvasRingSurface implements RingSurface {
+
+    private final Paint mCirclePaint;
+    private final TextPaint mTextPaint;
+    private final RectF mOval = new RectF();
+    private Canvas mCanvas;
+
+    CanvasRingSurface(Paint circlePaint, TextPaint textPaint) {
+        mCirclePaint = circlePaint;
+        mTextPaint = textPaint;
+    }
+
+    CanvasRingSurface wrap(Canvas canvas) {
+        mCanvas = canvas;
+        return this;
+    }
+
+    @Override
+    public void setTextStyle(float textSize, float shadowRadius, float shadowDx, float shadowDy,
+                             int shadowColor) {
+        mTextPaint.setTextSize(textSize);
+        mTextPaint.setShadowLayer(shadowRadius, shadowDx, shadowDy, shadowColor);
+    }
+
+    @Override
+    public void getGlyphWidths(char[] text, int count, float[] widths) {
+        mTextPaint.getTextWidths(text, 0, count, widths);
+    }
+
+    @Override
+    public float getAscent() {
+        return mTextPaint.ascent();
+    }
+
+    @Override
+    public float getDescent() {
+        return mTextPaint.descent();
+    }
+
+    @Override
+    public void drawRing(float cx, float cy, float radius, float strokeWidth, int color) {
+        mCirclePaint.setColor(color);
+        mCirclePaint.setStrokeWidth(strokeWidth);
+        mCanvas.drawCircle(cx, cy, radius, mCirclePaint);
+    }
+
+    @Override
+    public void drawArc(float cx, float cy, float radius, float strokeWidth, float startAngle,
+                        float sweepAngle, int color) {
+        mCirclePaint.setColor(color);
+        mCirclePaint.setStrokeWidth(strokeWidth);
+        mOval.set(cx - radius, cy - radius, cx + radius, cy + radius);
+        mCanvas.drawArc(mOval, RingGeometry.toDrawingAngle(startAngle), sweepAngle, false,
+                mCirclePaint);
+    }
+
+    @Override
+    public void drawGlyph(char[] text, int index, int count, float x, float y,
+                          float degrees, float pivotX, float pivotY, int color) {
+        mTextPaint.setColor(color);
+        mCanvas.save();
+        mCanvas.rotate(degrees, pivotX, pivotY);
+        mCanvas.drawText(text, index, count, x, y, mTextPaint);
+        mCanvas.restore();
+    }
+}
@@ -3,7 +3,6 @@ package com.ai.ringbutton;
 import android.app.Activity;
 import android.os.Build;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.View;
 import android.widget.RelativeLayout;
 
@@ -15,8 +14,10 @@ public class MainActivity extends Activity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        Log.i(TAG, "Entered onCreate");
+        RingLog.i(TAG, "Entered onCreate");
         super.onCreate(savedInstanceState);
+        // load fonts in the background before rings are inflated
+        RingTypefaces.warmUp(this);
         setContentView(R.layout.activity_main);
 
         final RelativeLayout frame = (RelativeLayout) findViewById(R.id.frame);
@@ -30,12 +31,15 @@ public class MainActivity extends Activity {
         // when orientation changes
         // see: http://stackoverflow.com/questions/17761980/
         // strange-behaviour-of-drawtextonpath-with-hardware-accelration
-        if (!frame.isInEditMode()) {
+        // Only drawTextOnPath is affected, glyph rendering stays accelerated.
+        boolean needsSoftwareLayer =
+                ringButton.getTextRenderMode() == RingButton.TEXT_RENDER_MODE_PATH;
+        if (needsSoftwareLayer && !frame.isInEditMode()) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
                 frame.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
             }
         }
-        if (!ringButton.isInEditMode()) {
+        if (needsSoftwareLayer && !ringButton.isInEditMode()) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
                 ringButton.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
             }
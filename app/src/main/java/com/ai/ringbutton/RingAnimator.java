@@ -0,0 +1,198 @@
+package com.ai.ringbutton;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Drives RingButton color transitions from a single frame clock shared by
+ * all instances. Only buttons that are mid-transition are subscribed, and
+ * the clock stops requesting frames once none are left.
+ * <p>
+ * Must be used from the main thread.
+ */
+final class RingAnimator {
+
+    /**
+     * Subscriber of frames, e.g. a RingButton that is mid-transition.
+     */
+    interface Client {
+        /**
+         * @return false when nothing is animated anymore, which drops the
+         *         client
+         */
+        boolean onAnimationFrame(long frameTimeNanos);
+    }
+
+    /**
+     * Source of frames. The default one uses Choreographer on API 16+ and
+     * a main thread Handler otherwise; tests may supply a fake clock.
+     */
+    interface FrameClock {
+        long nanoTime();
+
+        /**
+         * Requests a single call of {@link RingAnimator#doFrame(long)}.
+         */
+        void postFrame(RingAnimator animator);
+    }
+
+    private static final int ALPHA_SHIFT = 24;
+    private static final int RED_SHIFT = 16;
+    private static final int GREEN_SHIFT = 8;
+    private static final int CHANNEL_MASK = 0xFF;
+
+    private static RingAnimator sInstance;
+
+    private final FrameClock mClock;
+    private final ArrayList<Client> mActive = new ArrayList<Client>();
+    private boolean mFramePending;
+    private boolean mInFrame;
+
+    RingAnimator(FrameClock clock) {
+        mClock = clock;
+    }
+
+    static RingAnimator getInstance() {
+        if (sInstance == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                sInstance = new RingAnimator(new ChoreographerClock());
+            } else {
+                sInstance = new RingAnimator(new HandlerClock());
+            }
+        }
+        return sInstance;
+    }
+
+    long nanoTime() {
+        return mClock.nanoTime();
+    }
+
+    /**
+     * Subscribes the client to frames until its
+     * {@code onAnimationFrame} returns false.
+     */
+    void start(Client client) {
+        if (!mActive.contains(client)) {
+            mActive.add(client);
+        }
+        if (!mFramePending) {
+            mFramePending = true;
+            mClock.postFrame(this);
+        }
+    }
+
+    void cancel(Client client) {
+        int i = mActive.indexOf(client);
+        if (i < 0) {
+            return;
+        }
+        if (mInFrame) {
+            // doFrame is iterating, it compacts the list afterwards
+            mActive.set(i, null);
+        } else {
+            mActive.remove(i);
+        }
+    }
+
+    boolean isRunning(Client client) {
+        return mActive.contains(client);
+    }
+
+    void doFrame(long frameTimeNanos) {
+        mFramePending = false;
+        // clients may cancel each other or start new ones meanwhile: slots
+        // are cleared instead of removed and new clients are appended
+        mInFrame = true;
+        for (int i = mActive.size() - 1; i >= 0; i--) {
+            Client client = mActive.get(i);
+            if (client != null && !client.onAnimationFrame(frameTimeNanos)) {
+                mActive.set(i, null);
+            }
+        }
+        mInFrame = false;
+        int live = 0;
+        for (int i = 0, n = mActive.size(); i < n; i++) {
+            Client client = mActive.get(i);
+            if (client != null) {
+                mActive.set(live++, client);
+            }
+        }
+        for (int i = mActive.size() - 1; i >= live; i--) {
+            mActive.remove(i);
+        }
+        if (!mActive.isEmpty()) {
+            mFramePending = true;
+            mClock.postFrame(this);
+        }
+    }
+
+    /**
+     * Fills the table with colors linearly interpolated per ARGB channel,
+     * table[0] is from and table[length - 1] is to.
+     */
+    static void fillColorTable(int from, int to, int[] table) {
+        int last = table.length - 1;
+        for (int i = 0; i <= last; i++) {
+            table[i] = (lerp(from >>> ALPHA_SHIFT, to >>> ALPHA_SHIFT, i, last) << ALPHA_SHIFT)
+                    | (lerp(from >> RED_SHIFT & CHANNEL_MASK,
+                            to >> RED_SHIFT & CHANNEL_MASK, i, last) << RED_SHIFT)
+                    | (lerp(from >> GREEN_SHIFT & CHANNEL_MASK,
+                            to >> GREEN_SHIFT & CHANNEL_MASK, i, last) << GREEN_SHIFT)
+                    | lerp(from & CHANNEL_MASK, to & CHANNEL_MASK, i, last);
+        }
+    }
+
+    private static int lerp(int from, int to, int step, int steps) {
+        return steps == 0 ? to : from + (to - from) * step / steps;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerClock
+            implements FrameClock, Choreographer.FrameCallback {
+        private RingAnimator mAnimator;
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void postFrame(RingAnimator animator) {
+            mAnimator = animator;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mAnimator.doFrame(frameTimeNanos);
+        }
+    }
+
+    private static final class HandlerClock implements FrameClock, Runnable {
+        private static final long FRAME_DELAY_MS = 16;
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private RingAnimator mAnimator;
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void postFrame(RingAnimator animator) {
+            mAnimator = animator;
+            mHandler.postDelayed(this, FRAME_DELAY_MS);
+        }
+
+        @Override
+        public void run() {
+            mAnimator.doFrame(System.nanoTime());
+        }
+    }
+}
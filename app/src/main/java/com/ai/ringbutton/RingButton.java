@@ -4,23 +4,38 @@ import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.RectF;
 import android.graphics.Typeface;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
 import android.text.TextPaint;
 import android.util.AttributeSet;
-import android.util.Log;
+import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup.LayoutParams;
 
+import com.ai.ringbutton.geometry.RingGeometry;
+import com.ai.ringbutton.render.RingPainter;
+import com.ai.ringbutton.render.RingSpec;
+import com.ai.ringbutton.render.RingSurface;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Displays RingButton to the user.
  * <p>
@@ -31,6 +46,15 @@ import android.view.ViewGroup.LayoutParams;
  * @attr ref R.styleable#RingButton_externalDiameter
  * @attr ref R.styleable#RingButton_internalDiameter
  * @attr ref R.styleable#RingButton_ringBackgroundColor
+ * @attr ref R.styleable#RingButton_textRenderMode
+ * @attr ref R.styleable#RingButton_bitmapCacheEnabled
+ * @attr ref R.styleable#RingButton_colorAnimationDuration
+ * @attr ref R.styleable#RingButton_marqueeSpeed
+ * @attr ref R.styleable#RingButton_marqueeDirection
+ * @attr ref R.styleable#RingButton_autoFitText
+ * @attr ref R.styleable#RingButton_autoFitFraction
+ * @attr ref R.styleable#RingButton_autoFitMinTextSize
+ * @attr ref R.styleable#RingButton_autoFitMaxTextSize
  * @attr ref R.styleable#RingButton_android_text
  * @attr ref R.styleable#RingButton_android_textColor
  * @attr ref R.styleable#RingButton_android_textSize
@@ -58,16 +82,40 @@ public class RingButton extends View implements View.OnClickListener {
 
     private static final String TAG = "RingButton";
 
-    private static final float INTERNAL_DIAMETER_FRACTION = 0.25f;
-    private static final String ROBOTO_PATH = "fonts/Roboto-Regular.ttf";
-    private static final int DEFAULT_VIEW_SIZE = LayoutParams.MATCH_PARENT;
+    /**
+     * Text is drawn with {@link Canvas#drawTextOnPath}. Needs a software
+     * layer to render correctly on some devices.
+     */
+    public static final int TEXT_RENDER_MODE_PATH = 0;
+    /**
+     * Each glyph is placed along the ring by the view itself and drawn with
+     * {@link Canvas#drawText} under a rotation, so hardware acceleration
+     * can stay on.
+     */
+    public static final int TEXT_RENDER_MODE_GLYPHS = 1;
+
+    /** Text rotates clockwise in marquee mode. */
+    public static final int MARQUEE_DIRECTION_CLOCKWISE = 0;
+    /** Text rotates counterclockwise in marquee mode. */
+    public static final int MARQUEE_DIRECTION_COUNTERCLOCKWISE = 1;
+
+    static final float INTERNAL_DIAMETER_FRACTION = RingGeometry.INTERNAL_DIAMETER_FRACTION;
+    static final int DEFAULT_VIEW_SIZE = LayoutParams.MATCH_PARENT;
     private static final int DEFAULT_STYLE_ATTR_NAME =
             R.attr.ringButtonStyle;
-    private static final int DEFAULT_TEXT_SIZE = 15;
-    private static final int DEFAULT_RING_COLOR = 0xFFFFBB33;
-    private static final int DEFAULT_TEXT_COLOR = 0xFF33B5E5;
-
-    private static Typeface customRoboto;
+    private static final float DEFAULT_TEXT_SIZE_SP = 15;
+    static final int DEFAULT_RING_COLOR = RingSpec.DEFAULT_RING_COLOR;
+    static final int DEFAULT_TEXT_COLOR = RingSpec.DEFAULT_TEXT_COLOR;
+    private static final int DEFAULT_PROGRESS_COLOR = RingSpec.DEFAULT_PROGRESS_COLOR;
+    private static final int DEFAULT_BITMAP_CACHE_MAX_BYTES = 8 * 1024 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int COLOR_FADE_STEPS = 32;
+    private static final int RIPPLE_MAX_ALPHA = 0x60;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final float NANOS_PER_SECOND = 1e9f;
+    private static final float FULL_CIRCLE = RingGeometry.FULL_CIRCLE;
+    static final float DEFAULT_AUTO_FIT_FRACTION = 0.9f;
+    private static final float DEFAULT_AUTO_FIT_MIN_TEXT_SIZE_SP = 8;
 
     private int mExternalDiameter = DEFAULT_VIEW_SIZE;
     private int mInternalDiameter = -1;
@@ -78,10 +126,111 @@ public class RingButton extends View implements View.OnClickListener {
     private final Paint mCirclePaint = new Paint();
     private final TextPaint mTextPaint = new TextPaint();
     private final Path mTextPath = new Path();
-
-    private int mXclick, mYclick;
-    private int mSavedRingColor;
-    private int mSavedTextColor;
+    private final CanvasRingSurface mSurface = new CanvasRingSurface(mCirclePaint, mTextPaint);
+
+    // donut chart mode: colored arcs drawn over the ring
+    private final ArrayList<RingSegment> mSegments = new ArrayList<RingSegment>();
+    private final Paint mSegmentPaint = new Paint();
+
+    // determinate progress arc; setProgress() may be called from any thread
+    // and is applied at most once per frame on the UI thread. Updates from
+    // other threads or while detached go through a main looper Handler:
+    // before API 24 View.post from a detached view queues on the calling
+    // thread's run queue, which off the UI thread never runs
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private float mProgress;
+    private final AtomicInteger mPendingProgressBits = new AtomicInteger();
+    private final AtomicBoolean mProgressUpdatePosted = new AtomicBoolean();
+    private final Runnable mProgressUpdate = new Runnable() {
+        @Override
+        public void run() {
+            // cleared before reading, so a later value posts a new update
+            mProgressUpdatePosted.set(false);
+            applyProgress(Float.intBitsToFloat(mPendingProgressBits.get()));
+        }
+    };
+    private final Paint mProgressPaint = new Paint();
+    private final RectF mProgressOval = new RectF();
+    private final float[] mProgressDirty = new float[4];
+
+    // ring geometry, recomputed only when size or text metrics change
+    private boolean mGeometryDirty = true;
+    private float mCenterX, mCenterY;
+    private float mOuterRadius, mInnerRadius;
+    private float mStrokeWidth;
+    private float mCircleMagicRadius;
+    private float mTextVOffset;
+
+    private int mTextRenderMode = TEXT_RENDER_MODE_PATH;
+    // glyph layout for TEXT_RENDER_MODE_GLYPHS
+    private char[] mTextChars = new char[0];
+    private float[] mGlyphWidths = new float[0];
+    private float[] mGlyphAngles = new float[0];
+    // text layout computed off the UI thread, used while it matches the ring
+    private RingTextLayout mPrecomputedLayout;
+
+    // pre-rendered ring for the normal and the inverted (clicked) colors
+    private boolean mBitmapCacheEnabled;
+    private int mBitmapCacheMaxBytes = DEFAULT_BITMAP_CACHE_MAX_BYTES;
+    private boolean mBitmapCacheStale = true;
+    private final Bitmap[] mCacheBitmaps = new Bitmap[2];
+    private final Canvas mCacheCanvas = new Canvas();
+    private final int[] mCacheRingColors = new int[2];
+    private final int[] mCacheTextColors = new int[2];
+
+    // color cross-fade on click, driven by the shared RingAnimator
+    private final RingAnimator.Client mAnimationClient = new RingAnimator.Client() {
+        @Override
+        public boolean onAnimationFrame(long frameTimeNanos) {
+            return RingButton.this.onAnimationFrame(frameTimeNanos);
+        }
+    };
+    private int mColorAnimationDuration;
+    private final int[] mColorFadeTable = new int[COLOR_FADE_STEPS];
+    private int mColorFadeFrom, mColorFadeTo;
+    private boolean mColorFadeTableValid;
+    private boolean mColorFadeForward;
+    private boolean mColorAnimating;
+    private long mColorAnimationStart;
+    private float mColorAnimationFraction;
+    private int mTargetRingColor, mTargetTextColor;
+    private final Paint mRipplePaint = new Paint();
+
+    // marquee: the text is rotated as a whole, nothing is re-laid out
+    private float mMarqueeSpeed;
+    private int mMarqueeDirection = MARQUEE_DIRECTION_CLOCKWISE;
+    private float mMarqueeAngle;
+    private boolean mMarqueeRunning;
+    private long mMarqueeLastFrame;
+    // read by setProgress on other threads
+    private volatile boolean mAttached;
+    private boolean mWindowVisible = true;
+
+    // auto-fit: text size chosen to fill a fraction of the centerline
+    private boolean mAutoFitText;
+    private float mAutoFitFraction = DEFAULT_AUTO_FIT_FRACTION;
+    private float mAutoFitMinTextSize;
+    private float mAutoFitMaxTextSize;
+    private float mRequestedTextSize = -1;
+
+    // last onMeasure input and output, valid until an intrinsic size input changes
+    private boolean mMeasureCacheValid;
+    private int mLastWidthSpec, mLastHeightSpec;
+    private int mLastMeasuredWidth, mLastMeasuredHeight;
+
+    // nesting depth of edit()/applyStyle batches and what they deferred
+    private int mBatchDepth;
+    private boolean mBatchInvalidate;
+    private boolean mBatchLayout;
+
+    // null unless metrics are enabled
+    private RingMetrics mMetrics;
+
+    // true while a touch that started inside the ring is in progress
+    private boolean mTouchDownInRing;
+
+    // properties right after inflation; saved state holds only the differences
+    private RingState mInflatedState;
 
     private Context mContext;
 
@@ -125,311 +274,691 @@ public class RingButton extends View implements View.OnClickListener {
 
     private void initRingButton(Context context, AttributeSet attrs,
                                 int defStyleAttr, int defStyleRes) {
-        this.setOnClickListener(this);
+        setClickable(true);
         mCirclePaint.setAntiAlias(true);
         mCirclePaint.setStyle(Paint.Style.STROKE);
         mTextPaint.setAntiAlias(true);
         mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mRipplePaint.setAntiAlias(true);
+        mRipplePaint.setStyle(Paint.Style.STROKE);
+        mRipplePaint.setColor(Color.WHITE);
+        mSegmentPaint.setAntiAlias(true);
+        mSegmentPaint.setStyle(Paint.Style.STROKE);
+        mProgressPaint.setAntiAlias(true);
+        mProgressPaint.setStyle(Paint.Style.STROKE);
+        mProgressPaint.setColor(DEFAULT_PROGRESS_COLOR);
+
+        applyStyle(RingStyle.obtain(context, attrs, defStyleAttr, defStyleRes));
+        mInflatedState = captureState();
+    }
 
-        // Text Appearance
-        ColorStateList textCol = null;
-        int textSize = DEFAULT_TEXT_SIZE;
-        String fontFamily = null;
-        int typefaceIndex = -1, styleIndex = -1;
-        int shadowColor = mShadowColor;
-        float dx = mShadowDx, dy = mShadowDy, r = mShadowRadius;
-        boolean elegant = false;
-        float letterSpacing = 0;
-        String fontFeatureSettings = null;
-        /*
-         * PARTLY COPIED FROM TextView SOURCE
-         * Look the appearance up without checking first if it exists because
-         * it greatly simplifies the logic to be able to parse the appearance
-         * first and then let specific tags for this View override it.
-         */
-        final Resources.Theme theme = context.getTheme();
-        TypedArray a = theme.obtainStyledAttributes(attrs,
-                R.styleable.RingButtonAppearance, defStyleAttr, 0);
-        TypedArray appearance = null;
-        int ap = a.getResourceId(
-                R.styleable.RingButtonAppearance_android_textAppearance, -1);
-        a.recycle();
-        if (ap != -1) {
-            appearance = theme.obtainStyledAttributes(ap, R.styleable.TextAppearance);
-        }
-        if (appearance != null) {
-            int n = appearance.getIndexCount();
-            for (int i = 0; i < n; i++) {
-                int attr = appearance.getIndex(i);
-                switch (attr) {
-                    case R.styleable.TextAppearance_android_elegantTextHeight:
-                        elegant = appearance.getBoolean(attr, false);
-                        break;
-
-                    case R.styleable.TextAppearance_android_fontFamily:
-                        fontFamily = appearance.getString(attr);
-                        break;
-
-                    case R.styleable.TextAppearance_android_fontFeatureSettings:
-                        fontFeatureSettings = appearance.getString(attr);
-                        break;
-
-                    case R.styleable.TextAppearance_android_letterSpacing:
-                        letterSpacing = appearance.getFloat(attr, 0);
-                        break;
-
-                    case R.styleable.TextAppearance_android_shadowColor:
-                        shadowColor = appearance.getInt(attr, 0);
-                        break;
-
-                    case R.styleable.TextAppearance_android_shadowDx:
-                        dx = appearance.getFloat(attr, 0);
-                        break;
-
-                    case R.styleable.TextAppearance_android_shadowDy:
-                        dy = appearance.getFloat(attr, 0);
-                        break;
-
-                    case R.styleable.TextAppearance_android_shadowRadius:
-                        r = appearance.getFloat(attr, 0);
-                        break;
-
-                    case R.styleable.TextAppearance_android_textColor:
-                        textCol = appearance.getColorStateList(attr);
-                        break;
-
-                    case R.styleable.TextAppearance_android_textSize:
-                        textSize = appearance.getDimensionPixelSize(attr, textSize);
-                        break;
-
-                    case R.styleable.TextAppearance_android_textStyle:
-                        styleIndex = appearance.getInt(attr, -1);
-                        break;
-
-                    case R.styleable.TextAppearance_android_typeface:
-                        typefaceIndex = appearance.getInt(attr, -1);
-                        break;
-                    default:
-                        break;
-                    /*
-                    Not implemented attributes:
-                    android:allCaps
-                    android:textColorHighlight
-                    android:textColorHint
-                    android:textColorLink
-                    */
-                }
-            }
-            appearance.recycle();
-        }
-
-        String text = "attribute android.text is not set";
-        int ringColor = DEFAULT_RING_COLOR;
-        int externalDiameter = mExternalDiameter;
-        int internalDiameter = mInternalDiameter;
-        int defaultTextColor = DEFAULT_TEXT_COLOR;
-
-        /*
-         * PARTLY COPIED FROM TextView SOURCE
-         * Appearance parsed, now let specific tags for this View override it.
-         */
-        a = theme.obtainStyledAttributes(
-                attrs, R.styleable.RingButton, defStyleAttr, defStyleRes);
-
-        int n = a.getIndexCount();
-        for (int i = 0; i < n; i++) {
-            int attr = a.getIndex(i);
-            switch (attr) {
-                case R.styleable.RingButton_externalDiameter:
-                    externalDiameter = a.getDimensionPixelSize(attr, mExternalDiameter);
-                    break;
-
-                case R.styleable.RingButton_internalDiameter:
-                    internalDiameter = a.getDimensionPixelSize(attr, mInternalDiameter);
-                    break;
-
-                case R.styleable.RingButton_ringBackgroundColor:
-                    ringColor = a.getColor(attr, ringColor);
-                    break;
-
-                case R.styleable.RingButton_android_text:
-                    text = a.getString(attr);
-                    break;
-
-                case R.styleable.RingButton_android_textColor:
-                    textCol = a.getColorStateList(attr);
-                    break;
-
-                case R.styleable.RingButton_android_textSize:
-                    textSize = a.getDimensionPixelSize(attr, textSize);
-                    break;
-
-                case R.styleable.RingButton_android_fontFamily:
-                    fontFamily = a.getString(attr);
-                    break;
-
-                case R.styleable.RingButton_android_typeface:
-                    typefaceIndex = a.getInt(attr, typefaceIndex);
-                    break;
-
-                case R.styleable.RingButton_android_textStyle:
-                    styleIndex = a.getInt(attr, styleIndex);
-                    break;
-
-                case R.styleable.RingButton_android_shadowColor:
-                    shadowColor = a.getInt(attr, 0);
-                    break;
-
-                case R.styleable.RingButton_android_shadowDx:
-                    dx = a.getFloat(attr, 0);
-                    break;
-
-                case R.styleable.RingButton_android_shadowDy:
-                    dy = a.getFloat(attr, 0);
-                    break;
-
-                case R.styleable.RingButton_android_shadowRadius:
-                    r = a.getFloat(attr, 0);
-                    break;
-
-                case R.styleable.RingButton_android_elegantTextHeight:
-                    elegant = a.getBoolean(attr, false);
-                    break;
-
-                case R.styleable.RingButton_android_letterSpacing:
-                    letterSpacing = a.getFloat(attr, 0);
-                    break;
-
-                case R.styleable.RingButton_android_fontFeatureSettings:
-                    fontFeatureSettings = a.getString(attr);
-                    break;
-                default:
-                    break;
-            }
-        }
-        a.recycle();
-        setExternalDiameter(externalDiameter);
-        setInternalDiameter(internalDiameter);
-        setRingBackgroundColor(ringColor);
-        setTextColor(textCol != null ? textCol : ColorStateList.valueOf(defaultTextColor));
-        setRawTextSize(textSize);
-        setElegantTextHeight(elegant);
-        setLetterSpacing(letterSpacing);
-        setFontFeatureSettings(fontFeatureSettings);
-        if (fontFamily != null || typefaceIndex != -1 || styleIndex != -1) {
-            setTypefaceFromAttrs(fontFamily, typefaceIndex, styleIndex);
+    private void applyStyle(RingStyle style) {
+        beginBatch();
+        setExternalDiameter(style.externalDiameter);
+        setInternalDiameter(style.internalDiameter);
+        setRingBackgroundColor(style.ringColor);
+        setTextRenderMode(style.textRenderMode);
+        setBitmapCacheEnabled(style.bitmapCacheEnabled);
+        setColorAnimationDuration(style.colorAnimationDuration);
+        setMarqueeDirection(style.marqueeDirection);
+        setMarqueeSpeed(style.marqueeSpeed);
+        float minSize = style.autoFitMinTextSize > 0 ? style.autoFitMinTextSize
+                : TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                DEFAULT_AUTO_FIT_MIN_TEXT_SIZE_SP, getResources().getDisplayMetrics());
+        setAutoFitTextSizeRange(minSize, style.autoFitMaxTextSize);
+        setAutoFitFraction(style.autoFitFraction);
+        setAutoFitText(style.autoFitText);
+        setTextColor(style.textColor != null
+                ? style.textColor : ColorStateList.valueOf(DEFAULT_TEXT_COLOR));
+        setRawTextSize(style.textSize >= 0 ? style.textSize
+                : getDefaultTextSize(getResources().getDisplayMetrics()));
+        setElegantTextHeight(style.elegantTextHeight);
+        setLetterSpacing(style.letterSpacing);
+        setFontFeatureSettings(style.fontFeatureSettings);
+        if (style.fontFamily != null || style.typefaceIndex != -1 || style.styleIndex != -1) {
+            setTypefaceFromAttrs(style.fontFamily, style.typefaceIndex, style.styleIndex);
         } else {
             // set Roboto font
             setDefaultFont();
         }
-        if (shadowColor != 0) {
-            setShadowLayer(r, dx, dy, shadowColor);
+        if (style.shadowColor != 0) {
+            setShadowLayer(style.shadowRadius, style.shadowDx, style.shadowDy,
+                    style.shadowColor);
         }
-        setText(text);
+        setText(style.text);
+        endBatch();
+    }
+
+    /**
+     * @return text size of a RingButton, or of a RingGroup ring, without a
+     * textSize attribute, in pixels
+     */
+    static float getDefaultTextSize(DisplayMetrics metrics) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE_SP, metrics);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        Log.i(TAG, "Entered onMeasure");
-        setMeasuredDimension(getRevisedDefaultSize(widthMeasureSpec),
-                getRevisedDefaultSize(heightMeasureSpec));
+        RingLog.i(TAG, "Entered onMeasure");
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        if (!mMeasureCacheValid || widthMeasureSpec != mLastWidthSpec
+                || heightMeasureSpec != mLastHeightSpec) {
+            int intrinsic = mExternalDiameter <= 0 ? getIntrinsicDiameter() : 0;
+            mLastMeasuredWidth = getRevisedDefaultSize(widthMeasureSpec, intrinsic);
+            mLastMeasuredHeight = getRevisedDefaultSize(heightMeasureSpec, intrinsic);
+            mLastWidthSpec = widthMeasureSpec;
+            mLastHeightSpec = heightMeasureSpec;
+            mMeasureCacheValid = true;
+        }
+        setMeasuredDimension(mLastMeasuredWidth, mLastMeasuredHeight);
+        if (mMetrics != null) {
+            mMetrics.onCallback(this, RingMetrics.CALLBACK_MEASURE,
+                    System.nanoTime() - start);
+        }
     }
 
-    private int getRevisedDefaultSize(int sizeMeasureSpec) {
-        int result;
-//      int specMode = MeasureSpec.getMode(measureSpec);
+    private int getRevisedDefaultSize(int sizeMeasureSpec, int intrinsic) {
+        int specMode = MeasureSpec.getMode(sizeMeasureSpec);
         int size = MeasureSpec.getSize(sizeMeasureSpec);
 
         // attribute externalDiameter is not set in layout specification
         // (therefore default value match_parent is applied)
         // or it is set as <=0
         if (mExternalDiameter <= 0) {
-            result = size;
-        } else {
-            result = mExternalDiameter;
+            return resolveSize(intrinsic, sizeMeasureSpec);
         }
 
-        // doesn't matter in this case
-/*      switch (specMode) {
-            case MeasureSpec.UNSPECIFIED:
-                result = size;
-                break;
+        // externalDiameter is the preferred size, limited by the space the
+        // parent has; an exact size wins and the ring is drawn within it
+        switch (specMode) {
             case MeasureSpec.AT_MOST:
+                return Math.min(mExternalDiameter, size);
             case MeasureSpec.EXACTLY:
-                result = specSize;
-                break;
+                return size;
+            case MeasureSpec.UNSPECIFIED:
+            default:
+                return mExternalDiameter;
+        }
+    }
+
+    /**
+     * Computes the smallest external diameter at which the text fits along
+     * the ring centerline and the stroke is as wide as the text is high.
+     */
+    private int getIntrinsicDiameter() {
+        float textWidth = mRingText != null ? mTextPaint.measureText(mRingText) : 0;
+        float textHeight = mTextPaint.descent() - mTextPaint.ascent();
+        float byLength;
+        float byHeight;
+        if (mInternalDiameter < 0) {
+            // centerline radius = D * (1 + f) / 4, stroke = D * (1 - f) / 2
+            byLength = (float) (2 * textWidth / (Math.PI * (1 + INTERNAL_DIAMETER_FRACTION)));
+            byHeight = 2 * textHeight / (1 - INTERNAL_DIAMETER_FRACTION);
+        } else {
+            // centerline radius = (D + d) / 4, stroke = (D - d) / 2
+            byLength = (float) (2 * textWidth / Math.PI) - mInternalDiameter;
+            byHeight = 2 * textHeight + mInternalDiameter;
         }
-*/
-        return result;
+        return (int) Math.ceil(Math.max(byLength, byHeight));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateGeometry();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        Log.i(TAG, "Entered onDraw");
-        int w = this.getWidth();
-        int h = this.getHeight();
-        int ox = w / 2;
-        int oy = h / 2;
+        RingLog.i(TAG, "Entered onDraw");
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        if (mGeometryDirty) {
+            updateGeometry();
+        }
+
+        // intermediate colors of a cross-fade and a changing progress arc
+        // are not worth caching. The marquee turns the text only, so the
+        // cached picture can be turned as a whole only if the rest of it
+        // is symmetric, i.e. there are no segments.
+        boolean rotated = mMarqueeAngle != 0;
+        Bitmap cached = mBitmapCacheEnabled && !mColorAnimating && mProgress <= 0
+                && (!rotated || mSegments.isEmpty()) ? getCachedRing() : null;
+        if (cached == null) {
+            drawRing(canvas, mMarqueeAngle);
+        } else if (rotated) {
+            canvas.save();
+            canvas.rotate(mMarqueeAngle, mCenterX, mCenterY);
+            canvas.drawBitmap(cached, 0, 0, null);
+            canvas.restore();
+        } else {
+            canvas.drawBitmap(cached, 0, 0, null);
+        }
+        if (mColorAnimating) {
+            drawRipple(canvas);
+        }
+        if (mMetrics != null) {
+            mMetrics.onCallback(this, RingMetrics.CALLBACK_DRAW,
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        flushProgressUpdate();
+        updateMarquee();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        flushProgressUpdate();
+        endColorAnimation();
+        updateMarquee();
+        releaseBitmapCache();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mWindowVisible = visibility == VISIBLE;
+        updateMarquee();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateMarquee();
+    }
+
+    /**
+     * Draws a wave that spreads from the ring centerline to the ring edges
+     * and fades out while the colors are cross-faded.
+     */
+    private void drawRipple(Canvas canvas) {
+        float fraction = mColorAnimationFraction;
+        mRipplePaint.setStrokeWidth(mStrokeWidth * fraction);
+        mRipplePaint.setAlpha((int) (RIPPLE_MAX_ALPHA * (1 - fraction)));
+        canvas.drawCircle(mCenterX, mCenterY, mCircleMagicRadius, mRipplePaint);
+    }
+
+    /**
+     * @param textAngle marquee rotation of the text in degrees; the ring,
+     *                  the segments and the progress arc are not rotated
+     */
+    private void drawRing(Canvas canvas, float textAngle) {
+        canvas.drawCircle(mCenterX, mCenterY, mCircleMagicRadius, mCirclePaint);
+        RingSurface glyphSurface = mTextRenderMode == TEXT_RENDER_MODE_GLYPHS
+                ? mSurface.wrap(canvas) : null;
+        for (int i = 0, n = mSegments.size(); i < n; i++) {
+            mSegments.get(i).draw(canvas, mCenterX, mCenterY, mCircleMagicRadius,
+                    mSegmentPaint, mTextPaint, mTextVOffset, glyphSurface);
+        }
+        if (mProgress > 0) {
+            canvas.drawArc(mProgressOval, -90, mProgress * FULL_CIRCLE, false, mProgressPaint);
+        }
+
+        if (mTextRenderMode == TEXT_RENDER_MODE_GLYPHS) {
+            boolean rotated = textAngle != 0;
+            if (rotated) {
+                canvas.save();
+                canvas.rotate(textAngle, mCenterX, mCenterY);
+            }
+            drawGlyphs(canvas);
+            if (rotated) {
+                canvas.restore();
+            }
+        } else {
+            canvas.save();
+            canvas.rotate(90 + textAngle, mCenterX, mCenterY);
+            canvas.drawTextOnPath(mRingText, mTextPath, 0, mTextVOffset, mTextPaint);
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Returns the pre-rendered ring for the current colors, rendering both
+     * the current and the inverted color state if the cache is stale.
+     *
+     * @return cached bitmap or null if the ring exceeds the memory cap
+     */
+    @Nullable
+    private Bitmap getCachedRing() {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0
+                || (long) w * h * BYTES_PER_PIXEL * 2 > mBitmapCacheMaxBytes) {
+            releaseBitmapCache();
+            return null;
+        }
+        int ringColor = mCirclePaint.getColor();
+        int textColor = mTextPaint.getColor();
+        if (!mBitmapCacheStale) {
+            for (int i = 0; i < mCacheBitmaps.length; i++) {
+                if (mCacheRingColors[i] == ringColor
+                        && mCacheTextColors[i] == textColor) {
+                    return mCacheBitmaps[i];
+                }
+            }
+        }
+        renderCachedRing(0, ringColor, textColor, w, h);
+        renderCachedRing(1, textColor, ringColor, w, h);
+        mCirclePaint.setColor(ringColor);
+        mTextPaint.setColor(textColor);
+        mBitmapCacheStale = false;
+        return mCacheBitmaps[0];
+    }
+
+    private void renderCachedRing(int slot, int ringColor, int textColor,
+                                  int w, int h) {
+        Bitmap bitmap = mCacheBitmaps[slot];
+        if (bitmap == null || bitmap.getWidth() != w || bitmap.getHeight() != h) {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+            bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            mCacheBitmaps[slot] = bitmap;
+        } else {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+        mCirclePaint.setColor(ringColor);
+        mTextPaint.setColor(textColor);
+        mCacheCanvas.setBitmap(bitmap);
+        drawRing(mCacheCanvas, 0);
+        mCacheRingColors[slot] = ringColor;
+        mCacheTextColors[slot] = textColor;
+    }
+
+    private void releaseBitmapCache() {
+        for (int i = 0; i < mCacheBitmaps.length; i++) {
+            if (mCacheBitmaps[i] != null) {
+                mCacheBitmaps[i].recycle();
+                mCacheBitmaps[i] = null;
+            }
+        }
+        mBitmapCacheStale = true;
+    }
+
+    /**
+     * Draws each glyph upright on the ring centerline, rotated by its
+     * precomputed angle around the ring center.
+     */
+    private void drawGlyphs(Canvas canvas) {
+        RingPainter.drawGlyphs(mSurface.wrap(canvas), mCenterX, mCenterY, mCircleMagicRadius,
+                mTextVOffset, mTextChars, mTextChars.length, mGlyphAngles, mTextPaint.getColor());
+    }
+
+    /**
+     * Recomputes ring dimensions, stroke width, text path and text vertical
+     * offset from the current view size and text paint.
+     */
+    private void updateGeometry() {
+        int ox = getWidth() / 2;
+        int oy = getHeight() / 2;
         int extDiameter = Math.min(ox * 2, oy * 2);
-        float intDiameter;
-        if (mInternalDiameter < 0) {
-            intDiameter = extDiameter * INTERNAL_DIAMETER_FRACTION;
+        if (mExternalDiameter > 0) {
+            extDiameter = Math.min(extDiameter, mExternalDiameter);
+        }
+        float intDiameter = RingGeometry.resolveInternalDiameter(extDiameter, mInternalDiameter);
+        mCenterX = ox;
+        mCenterY = oy;
+        mOuterRadius = extDiameter / 2.0f;
+        mInnerRadius = intDiameter / 2.0f;
+        mStrokeWidth = RingGeometry.strokeWidth(extDiameter, intDiameter);
+        mCircleMagicRadius = RingGeometry.centerlineRadius(extDiameter, intDiameter);
+        mCirclePaint.setStrokeWidth(mStrokeWidth);
+        mSegmentPaint.setStrokeWidth(mStrokeWidth);
+        mProgressPaint.setStrokeWidth(mStrokeWidth);
+        mProgressOval.set(mCenterX - mCircleMagicRadius, mCenterY - mCircleMagicRadius,
+                mCenterX + mCircleMagicRadius, mCenterY + mCircleMagicRadius);
+        for (int i = 0, n = mSegments.size(); i < n; i++) {
+            mSegments.get(i).invalidate();
+        }
+        if (mAutoFitText && mRingText != null) {
+            applyAutoFitTextSize();
+        }
+
+        RingTextLayout layout = mPrecomputedLayout;
+        if (layout != null && !layout.matches(mCircleMagicRadius, mTextPaint)) {
+            layout = null;
+            mPrecomputedLayout = null;
+        }
+        mTextVOffset = layout != null
+                ? layout.getVOffset() : RingTextLayout.computeVOffset(mTextPaint);
+        if (mTextRenderMode == TEXT_RENDER_MODE_GLYPHS) {
+            if (layout != null) {
+                copyGlyphLayout(layout);
+            } else {
+                layoutGlyphs();
+            }
         } else {
-            intDiameter = mInternalDiameter;
+            mTextPath.rewind();
+            mTextPath.addCircle(mCenterX, mCenterY, mCircleMagicRadius, Path.Direction.CW);
+        }
+        mGeometryDirty = false;
+        mBitmapCacheStale = true;
+        if (mMetrics != null) {
+            mMetrics.onGeometryRebuilt();
+        }
+    }
+
+    /**
+     * Sets the text size so that the text takes the configured fraction of
+     * the centerline circumference, never higher than the stroke.
+     */
+    private void applyAutoFitTextSize() {
+        float available = (float) (2 * Math.PI * mCircleMagicRadius * mAutoFitFraction);
+        float max = mAutoFitMaxTextSize > 0
+                ? Math.min(mAutoFitMaxTextSize, mStrokeWidth) : mStrokeWidth;
+        float size = RingTextFitter.fit(mTextPaint, mRingText, available,
+                Math.min(mAutoFitMinTextSize, max), max);
+        mTextPaint.setTextSize(size);
+    }
+
+    /**
+     * Computes the rotation (in degrees, clockwise from 12 o'clock) of every
+     * glyph so that the text is centered at the top of the ring, the same
+     * placement drawTextOnPath produces.
+     */
+    private void layoutGlyphs() {
+        int n = mTextChars.length;
+        if (mGlyphWidths.length < n) {
+            mGlyphWidths = new float[n];
+            mGlyphAngles = new float[n];
+        }
+        RingTextLayout.computeGlyphAngles(mTextPaint, mTextChars, mCircleMagicRadius,
+                mGlyphWidths, mGlyphAngles);
+    }
+
+    /**
+     * Takes the glyph angles from a precomputed layout instead of measuring
+     * the text. The layout stays immutable, its angles are copied.
+     */
+    private void copyGlyphLayout(RingTextLayout layout) {
+        int n = mTextChars.length;
+        if (mGlyphWidths.length < n) {
+            mGlyphWidths = new float[n];
+            mGlyphAngles = new float[n];
+        }
+        System.arraycopy(layout.getGlyphAngles(), 0, mGlyphAngles, 0, n);
+    }
+
+    /**
+     * Marks cached geometry as stale; it is rebuilt before the next draw.
+     */
+    private void invalidateGeometry(int setter) {
+        mGeometryDirty = true;
+        // inputs of the intrinsic size may have changed as well
+        mMeasureCacheValid = false;
+        if (mExternalDiameter <= 0 && mRingText != null
+                && (MeasureSpec.getMode(mLastWidthSpec) != MeasureSpec.EXACTLY
+                || MeasureSpec.getMode(mLastHeightSpec) != MeasureSpec.EXACTLY)) {
+            requestLayoutFromSetter();
+        }
+        invalidateFrom(setter);
+    }
+
+    /**
+     * Requests re-draw on behalf of the given setter.
+     *
+     * @param setter one of RingMetrics.SETTER_* constants
+     */
+    private void invalidateFrom(int setter) {
+        if (mBatchDepth > 0) {
+            mBatchInvalidate = true;
+            return;
+        }
+        if (mMetrics != null) {
+            mMetrics.onInvalidate(setter);
         }
-        float strokeWidth = (extDiameter - intDiameter) / 2.0f;
-        float circleMagicRadius = (intDiameter + strokeWidth) / 2.0f;
+        invalidate();
+    }
+
+    private void requestLayoutFromSetter() {
+        if (mBatchDepth > 0) {
+            mBatchLayout = true;
+            return;
+        }
+        requestLayout();
+    }
 
-        mCirclePaint.setStrokeWidth(strokeWidth);
-        canvas.drawCircle(ox, oy, circleMagicRadius, mCirclePaint);
+    /**
+     * Defers invalidate() and requestLayout() issued by setters until the
+     * matching {@link #endBatch()}.
+     */
+    private void beginBatch() {
+        mBatchDepth++;
+    }
 
-        mTextPath.addCircle(ox, oy, circleMagicRadius, Path.Direction.CW);
-        float vOffset = -mTextPaint.descent()
-                + (mTextPaint.descent() - mTextPaint.ascent()) / 2.0f;
-        canvas.save();
-        canvas.rotate(90, ox, oy);
-        canvas.drawTextOnPath(mRingText, mTextPath, 0, vOffset, mTextPaint);
-        canvas.restore();
-        mTextPath.rewind();
+    private void endBatch() {
+        if (--mBatchDepth > 0) {
+            return;
+        }
+        if (mBatchLayout) {
+            mBatchLayout = false;
+            requestLayout();
+        }
+        if (mBatchInvalidate) {
+            mBatchInvalidate = false;
+            invalidateFrom(RingMetrics.SETTER_BATCH);
+        }
     }
 
     @Override
     public boolean onTouchEvent(@NonNull MotionEvent event) {
-        Log.i(TAG, "Entered onTouchEvent");
+        RingLog.i(TAG, "Entered onTouchEvent");
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        boolean handled = handleTouchEvent(event);
+        if (mMetrics != null) {
+            mMetrics.onCallback(this, RingMetrics.CALLBACK_TOUCH,
+                    System.nanoTime() - start);
+        }
+        return handled;
+    }
 
-        // acquire coordinates to correctly handle onClick event
+    /*
+     * Pre-filters the gesture with a ring hit-test on ACTION_DOWN and
+     * ACTION_UP only, against the cached ring center and radii, and leaves
+     * everything else (pressed state, tap timeout, long click, focus in
+     * touch mode, the click itself) to View. A gesture starting in the hole
+     * or the corners is not consumed and falls through to the views
+     * underneath. An ACTION_UP off the ring is handed to View as
+     * ACTION_CANCEL: the event is relabelled in place rather than copied,
+     * so nothing is allocated per event.
+     */
+    private boolean handleTouchEvent(MotionEvent event) {
         switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mTouchDownInRing = isPointInRing(event.getX(), event.getY());
+                if (!mTouchDownInRing) {
+                    return false;
+                }
+                break;
+
             case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_MOVE:
-                mXclick = (int) event.getX();
-                mYclick = (int) event.getY();
+                boolean inRing = mTouchDownInRing
+                        && isPointInRing(event.getX(), event.getY());
+                mTouchDownInRing = false;
+                if (!inRing) {
+                    int action = event.getAction();
+                    event.setAction(MotionEvent.ACTION_CANCEL);
+                    super.onTouchEvent(event);
+                    event.setAction(action);
+                    return true;
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                mTouchDownInRing = false;
+                break;
+
             default:
-                return super.onTouchEvent(event);
+                break;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * Checks if the point lies on the ring, i.e. between the internal and
+     * the external circle. The transparent center and the corners of the
+     * view are outside the ring.
+     *
+     * @param x horizontal coordinate in the view's coordinate system
+     * @param y vertical coordinate in the view's coordinate system
+     * @return true if the point is inside the annulus
+     */
+    public boolean isPointInRing(float x, float y) {
+        if (mGeometryDirty) {
+            updateGeometry();
         }
+        return RingGeometry.isInAnnulus(x - mCenterX, y - mCenterY, mInnerRadius, mOuterRadius);
+    }
+
+    @Override
+    public boolean performClick() {
+        invertColors();
+        return super.performClick();
     }
 
+    /**
+     * Does nothing. RingButton inverts its colors in {@link #performClick()},
+     * so registering it as its own listener would invert them twice per tap.
+     *
+     * @deprecated RingButton handles its own clicks, don't register it as a
+     * listener
+     */
+    @Deprecated
     @Override
     public void onClick(View v) {
-        Log.i(TAG, "Entered onClick");
+    }
+
+    private void invertColors() {
+        RingLog.i(TAG, "Entered onClick");
+        endColorAnimation();
+        if (mColorAnimationDuration > 0 && getWindowToken() != null) {
+            startColorAnimation();
+            return;
+        }
+        int tmpColor;
+        tmpColor = mCirclePaint.getColor();
+        mCirclePaint.setColor(mTextPaint.getColor());
+        mTextPaint.setColor(tmpColor);
+        // Request re-draw
+        invalidateFrom(RingMetrics.SETTER_CLICK);
+    }
+
+    private void startColorAnimation() {
+        int ringColor = mCirclePaint.getColor();
+        int textColor = mTextPaint.getColor();
+        // one table serves both directions: the ring walks it one way
+        // and the text walks it the other way
+        if (mColorFadeTableValid && ringColor == mColorFadeTo && textColor == mColorFadeFrom) {
+            mColorFadeForward = false;
+        } else {
+            if (!mColorFadeTableValid
+                    || ringColor != mColorFadeFrom || textColor != mColorFadeTo) {
+                RingAnimator.fillColorTable(ringColor, textColor, mColorFadeTable);
+                mColorFadeFrom = ringColor;
+                mColorFadeTo = textColor;
+                mColorFadeTableValid = true;
+            }
+            mColorFadeForward = true;
+        }
+        mTargetRingColor = textColor;
+        mTargetTextColor = ringColor;
+        mColorAnimationFraction = 0;
+        mColorAnimating = true;
+        RingAnimator animator = RingAnimator.getInstance();
+        mColorAnimationStart = animator.nanoTime();
+        animator.start(mAnimationClient);
+    }
+
+    /**
+     * Called by {@link RingAnimator} on every frame while the colors are
+     * cross-faded or the marquee runs.
+     *
+     * @return false when nothing is animated anymore
+     */
+    private boolean onAnimationFrame(long frameTimeNanos) {
+        boolean running = false;
+        if (mMarqueeRunning) {
+            stepMarquee(frameTimeNanos);
+            running = true;
+        }
+        if (mColorAnimating) {
+            running |= stepColorAnimation(frameTimeNanos);
+        }
+        return running;
+    }
+
+    private boolean stepColorAnimation(long frameTimeNanos) {
+        float fraction = (frameTimeNanos - mColorAnimationStart)
+                / (float) (mColorAnimationDuration * NANOS_PER_MILLI);
+        if (fraction >= 1) {
+            // the animator drops us itself, don't cancel while it iterates
+            finishColorAnimation();
+            return false;
+        }
+        fraction = Math.max(fraction, 0);
+        int last = COLOR_FADE_STEPS - 1;
+        int step = Math.round(fraction * last);
+        int ringStep = mColorFadeForward ? step : last - step;
+        mCirclePaint.setColor(mColorFadeTable[ringStep]);
+        mTextPaint.setColor(mColorFadeTable[last - ringStep]);
+        mColorAnimationFraction = fraction;
+        invalidateFrom(RingMetrics.SETTER_CLICK);
+        return true;
+    }
+
+    /**
+     * Jumps a running color transition to its final colors.
+     */
+    private void endColorAnimation() {
+        if (mColorAnimating) {
+            if (!mMarqueeRunning) {
+                RingAnimator.getInstance().cancel(mAnimationClient);
+            }
+            finishColorAnimation();
+        }
+    }
+
+    private void finishColorAnimation() {
+        mColorAnimating = false;
+        mCirclePaint.setColor(mTargetRingColor);
+        mTextPaint.setColor(mTargetTextColor);
+        invalidateFrom(RingMetrics.SETTER_CLICK);
+    }
 
-        int ox = v.getWidth() / 2;
-        int oy = v.getHeight() / 2;
-        long extRadius = Math.min(ox, oy);
-        long extRadiusSquared = extRadius * extRadius;
-        long dx = mXclick - ox;
-        long dxSquared = dx * dx;
-        long dy = mYclick - oy;
-        long dySquared = dy * dy;
+    private void stepMarquee(long frameTimeNanos) {
+        float seconds = (frameTimeNanos - mMarqueeLastFrame) / NANOS_PER_SECOND;
+        mMarqueeLastFrame = frameTimeNanos;
+        float delta = mMarqueeSpeed * Math.max(seconds, 0);
+        if (mMarqueeDirection == MARQUEE_DIRECTION_COUNTERCLOCKWISE) {
+            delta = -delta;
+        }
+        mMarqueeAngle = (mMarqueeAngle + delta) % FULL_CIRCLE;
+        invalidateFrom(RingMetrics.SETTER_MARQUEE);
+    }
 
-        // check if onClick happened inside RingButton
-        if (dxSquared + dySquared <= extRadiusSquared) {
-            int tmpColor;
-            tmpColor = mCirclePaint.getColor();
-            mCirclePaint.setColor(mTextPaint.getColor());
-            mTextPaint.setColor(tmpColor);
-            // Request re-draw
-            invalidate();
+    /**
+     * Starts the marquee if it is enabled and the view can be seen,
+     * pauses it otherwise. The angle is kept while paused.
+     */
+    private void updateMarquee() {
+        boolean run = mMarqueeSpeed > 0 && mAttached && mWindowVisible && isShown();
+        if (run == mMarqueeRunning) {
+            return;
+        }
+        mMarqueeRunning = run;
+        RingAnimator animator = RingAnimator.getInstance();
+        if (run) {
+            mMarqueeLastFrame = animator.nanoTime();
+            animator.start(mAnimationClient);
+        } else if (!mColorAnimating) {
+            animator.cancel(mAnimationClient);
         }
     }
 
@@ -437,20 +966,16 @@ public class RingButton extends View implements View.OnClickListener {
      * Sets default font (Roboto) for text inside the RingButton.
      */
     public void setDefaultFont() {
+        Typeface tf;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            mTextPaint.setTypeface(Typeface.create("sans-serif", Typeface.NORMAL));
+            tf = RingTypefaces.create(RingTypefaces.DEFAULT_FAMILY, Typeface.NORMAL);
         } else {
-            try {
-                if (customRoboto == null) {
-                    customRoboto = Typeface.createFromAsset(mContext.getAssets(),
-                            ROBOTO_PATH);
-                }
-                mTextPaint.setTypeface(customRoboto);
-            } catch (Exception e) {
-                Log.e(TAG, "File: " + ROBOTO_PATH + " not found");
-            }
+            tf = RingTypefaces.getAsset(mContext, RingTypefaces.ROBOTO_PATH);
         }
-        invalidate();
+        if (tf != null) {
+            mTextPaint.setTypeface(tf);
+        }
+        invalidateGeometry(RingMetrics.SETTER_TYPEFACE);
     }
 
     // partly copied from TextView
@@ -463,10 +988,40 @@ public class RingButton extends View implements View.OnClickListener {
      * @attr ref R.styleable#RingButton_android_text
      */
     public void setText(String text) {
+        mPrecomputedLayout = null;
+        if (!text.equals(mRingText)) {
+            mRingText = text;
+            mTextChars = text.toCharArray();
+            invalidateGeometry(RingMetrics.SETTER_TEXT);
+        }
+    }
+
+    /**
+     * Sets the text together with its layout computed ahead of time, e.g.
+     * with {@link RingTextLayout#precompute}. If the ring radius or the text
+     * paint no longer match the layout, the text is laid out inline.
+     *
+     * @see #getTextRadius()
+     */
+    public void setPrecomputedText(RingTextLayout layout) {
+        String text = layout.getText();
+        mPrecomputedLayout = layout;
         if (!text.equals(mRingText)) {
             mRingText = text;
-            invalidate();
+            mTextChars = layout.getChars();
+        }
+        invalidateGeometry(RingMetrics.SETTER_TEXT);
+    }
+
+    /**
+     * @return radius of the ring centerline the text is laid out on, or 0
+     * before the first layout
+     */
+    public float getTextRadius() {
+        if (mGeometryDirty && getWidth() > 0) {
+            updateGeometry();
         }
+        return mCircleMagicRadius;
     }
 
     /**
@@ -489,9 +1044,10 @@ public class RingButton extends View implements View.OnClickListener {
      * @attr ref R.styleable#RingButton_android_textColor
      */
     public void setTextColor(int color) {
+        endColorAnimation();
         if (color != mTextPaint.getColor()) {
             mTextPaint.setColor(color);
-            invalidate();
+            invalidateFrom(RingMetrics.SETTER_TEXT_COLOR);
         }
     }
 
@@ -569,9 +1125,13 @@ public class RingButton extends View implements View.OnClickListener {
     }
 
     private void setRawTextSize(float size) {
-        if (size != mTextPaint.getTextSize()) {
-            mTextPaint.setTextSize(size);
-            invalidate();
+        if (size != mRequestedTextSize) {
+            mRequestedTextSize = size;
+            // in auto-fit mode the size is only used again when it is turned off
+            if (!mAutoFitText) {
+                mTextPaint.setTextSize(size);
+                invalidateGeometry(RingMetrics.SETTER_TEXT_SIZE);
+            }
         }
     }
 
@@ -586,7 +1146,10 @@ public class RingButton extends View implements View.OnClickListener {
      */
     public void setElegantTextHeight(boolean elegant) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            mTextPaint.setElegantTextHeight(elegant);
+            if (elegant != mTextPaint.isElegantTextHeight()) {
+                mTextPaint.setElegantTextHeight(elegant);
+                invalidateGeometry(RingMetrics.SETTER_ELEGANT_TEXT_HEIGHT);
+            }
         }
     }
 
@@ -617,7 +1180,7 @@ public class RingButton extends View implements View.OnClickListener {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
             if (letterSpacing != mTextPaint.getLetterSpacing()) {
                 mTextPaint.setLetterSpacing(letterSpacing);
-                invalidate();
+                invalidateGeometry(RingMetrics.SETTER_LETTER_SPACING);
             }
         }
     }
@@ -653,7 +1216,7 @@ public class RingButton extends View implements View.OnClickListener {
             if ((fontFeatureSettings != null)
                     && (!fontFeatureSettings.equals(mTextPaint.getFontFeatureSettings()))) {
                 mTextPaint.setFontFeatureSettings(fontFeatureSettings);
-                invalidate();
+                invalidateGeometry(RingMetrics.SETTER_FONT_FEATURE_SETTINGS);
             }
         }
     }
@@ -661,36 +1224,14 @@ public class RingButton extends View implements View.OnClickListener {
     // copied from TextView
     private void setTypefaceFromAttrs(String familyName, int typefaceIndex,
                                       int styleIndex) {
-        // Enum for the "typeface" XML parameter.
-        final int SANS = 1;
-        final int SERIF = 2;
-        final int MONOSPACE = 3;
-
-        Typeface tf = null;
         if (familyName != null) {
-            tf = Typeface.create(familyName, styleIndex);
+            Typeface tf = RingTypefaces.create(familyName, styleIndex);
             if (tf != null) {
                 setTypeface(tf);
                 return;
             }
         }
-        switch (typefaceIndex) {
-            case SANS:
-                tf = Typeface.SANS_SERIF;
-                break;
-
-            case SERIF:
-                tf = Typeface.SERIF;
-                break;
-
-            case MONOSPACE:
-                tf = Typeface.MONOSPACE;
-                break;
-            default:
-                break;
-        }
-
-        setTypeface(tf, styleIndex);
+        setTypeface(RingTypefaces.forTypefaceIndex(typefaceIndex), styleIndex);
     }
 
     // COPIED FROM TextView
@@ -705,11 +1246,7 @@ public class RingButton extends View implements View.OnClickListener {
      */
     public void setTypeface(Typeface tf, int style) {
         if (style > 0) {
-            if (tf == null) {
-                tf = Typeface.defaultFromStyle(style);
-            } else {
-                tf = Typeface.create(tf, style);
-            }
+            tf = RingTypefaces.create(tf, style);
 
             setTypeface(tf);
             // now compute what (if any) algorithmic styling is needed
@@ -717,6 +1254,7 @@ public class RingButton extends View implements View.OnClickListener {
             int need = style & ~typefaceStyle;
             mTextPaint.setFakeBoldText((need & Typeface.BOLD) != 0);
             mTextPaint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+            invalidateGeometry(RingMetrics.SETTER_TYPEFACE);
         } else {
             mTextPaint.setFakeBoldText(false);
             mTextPaint.setTextSkewX(0);
@@ -740,7 +1278,7 @@ public class RingButton extends View implements View.OnClickListener {
     public void setTypeface(Typeface tf) {
         if (mTextPaint.getTypeface() != tf) {
             mTextPaint.setTypeface(tf);
-            invalidate();
+            invalidateGeometry(RingMetrics.SETTER_TYPEFACE);
         }
     }
 
@@ -781,7 +1319,8 @@ public class RingButton extends View implements View.OnClickListener {
         mShadowDx = dx;
         mShadowDy = dy;
         mShadowColor = color;
-        invalidate();
+        mBitmapCacheStale = true;
+        invalidateFrom(RingMetrics.SETTER_SHADOW_LAYER);
     }
 
     /**
@@ -932,7 +1471,7 @@ public class RingButton extends View implements View.OnClickListener {
     public void setPaintFlags(int flags) {
         if (mTextPaint.getFlags() != flags) {
             mTextPaint.setFlags(flags);
-            invalidate();
+            invalidateGeometry(RingMetrics.SETTER_PAINT_FLAGS);
         }
     }
 
@@ -963,8 +1502,8 @@ public class RingButton extends View implements View.OnClickListener {
     public void setExternalDiameter(int externalDiameter) {
         if (externalDiameter != mExternalDiameter) {
             mExternalDiameter = externalDiameter;
-            requestLayout();
-            invalidate();
+            requestLayoutFromSetter();
+            invalidateGeometry(RingMetrics.SETTER_EXTERNAL_DIAMETER);
         }
     }
 
@@ -986,7 +1525,7 @@ public class RingButton extends View implements View.OnClickListener {
     public void setInternalDiameter(int internalDiameter) {
         if (internalDiameter != mInternalDiameter) {
             mInternalDiameter = internalDiameter;
-            invalidate();
+            invalidateGeometry(RingMetrics.SETTER_INTERNAL_DIAMETER);
         }
     }
 
@@ -1006,36 +1545,499 @@ public class RingButton extends View implements View.OnClickListener {
      * @attr ref R.styleable#RingButton_ringBackgroundColor
      */
     public void setRingBackgroundColor(int ringBackgroundColor) {
+        endColorAnimation();
         if (ringBackgroundColor != mCirclePaint.getColor()) {
             mCirclePaint.setColor(ringBackgroundColor);
-            invalidate();
+            invalidateFrom(RingMetrics.SETTER_RING_BACKGROUND_COLOR);
         }
     }
 
-    /*
-    * ***************************************************************
-    * Save and restore work
-    * BaseSavedState Pattern
-    * from Expert Android (Komatineni S., MacLean D.)
-    * ***************************************************************
-    */
+    /**
+     * Adds a colored arc drawn over the ring, turning the RingButton into a
+     * donut chart. Angles are in degrees, clockwise from 12 o'clock.
+     *
+     * @param label text drawn along the arc, or null
+     * @return index of the new segment
+     */
+    public int addSegment(float startAngle, float sweepAngle, int color,
+                          @Nullable String label) {
+        mSegments.add(new RingSegment(startAngle, sweepAngle, color, label));
+        invalidateSegments();
+        return mSegments.size() - 1;
+    }
+
+    /**
+     * Moves or resizes a segment. Only the arc of this segment is rebuilt.
+     */
+    public void setSegmentAngles(int index, float startAngle, float sweepAngle) {
+        RingSegment segment = mSegments.get(index);
+        if (startAngle != segment.getStartAngle()
+                || sweepAngle != segment.getSweepAngle()) {
+            segment.setAngles(startAngle, sweepAngle);
+            invalidateSegments();
+        }
+    }
+
+    public void setSegmentColor(int index, int color) {
+        RingSegment segment = mSegments.get(index);
+        if (color != segment.getColor()) {
+            segment.setColor(color);
+            invalidateSegments();
+        }
+    }
+
+    public void setSegmentLabel(int index, @Nullable String label) {
+        RingSegment segment = mSegments.get(index);
+        if (label == null ? segment.getLabel() != null : !label.equals(segment.getLabel())) {
+            segment.setLabel(label);
+            invalidateSegments();
+        }
+    }
+
+    public RingSegment getSegment(int index) {
+        return mSegments.get(index);
+    }
+
+    public int getSegmentCount() {
+        return mSegments.size();
+    }
+
+    /**
+     * Removes all segments, the plain ring is drawn again.
+     */
+    public void clearSegments() {
+        if (!mSegments.isEmpty()) {
+            mSegments.clear();
+            invalidateSegments();
+        }
+    }
+
+    /**
+     * Finds the segment under a point, e.g. of a tap.
+     *
+     * @param x horizontal coordinate in the view's coordinate system
+     * @param y vertical coordinate in the view's coordinate system
+     * @return index of the topmost segment at the point or -1 if the point
+     * is not on the ring or not on any segment
+     */
+    public int getSegmentIndexAt(float x, float y) {
+        if (mSegments.isEmpty() || !isPointInRing(x, y)) {
+            return -1;
+        }
+        // clockwise from 12 o'clock; the marquee turns the text only
+        float angle = RingGeometry.angleOf(x - mCenterX, y - mCenterY);
+        // later segments are drawn on top
+        for (int i = mSegments.size() - 1; i >= 0; i--) {
+            if (mSegments.get(i).containsAngle(angle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the fraction of the ring, clockwise from 12 o'clock, covered by
+     * the progress arc. May be called from any thread at any rate; only the
+     * latest value is applied, at most once per frame, and only the part of
+     * the ring between the old and the new value is redrawn.
+     *
+     * @param progress value in [0, 1], 0 hides the arc
+     */
+    public void setProgress(float progress) {
+        progress = Math.max(0f, Math.min(1f, progress));
+        mPendingProgressBits.set(Float.floatToIntBits(progress));
+        if (mProgressUpdatePosted.compareAndSet(false, true)) {
+            if (mAttached) {
+                // frame callbacks may be posted from any thread; they wait
+                // for the next vsync, so a fast producer costs one update
+                // per frame rather than one per message loop turn
+                ViewCompat.postOnAnimation(this, mProgressUpdate);
+                if (!mAttached) {
+                    // detached meanwhile, the callback may never run
+                    MAIN_HANDLER.post(mProgressUpdate);
+                }
+            } else {
+                MAIN_HANDLER.post(mProgressUpdate);
+            }
+        }
+    }
+
+    /**
+     * Applies a pending progress value right away and drops the posted
+     * update, so that no update is lost or stuck across attach and detach.
+     */
+    private void flushProgressUpdate() {
+        removeCallbacks(mProgressUpdate);
+        MAIN_HANDLER.removeCallbacks(mProgressUpdate);
+        mProgressUpdate.run();
+    }
+
+    /**
+     * @return progress currently drawn; a value passed to
+     * {@link #setProgress(float)} shows up here from the next frame on
+     */
+    public float getProgress() {
+        return mProgress;
+    }
+
+    public void setProgressColor(int color) {
+        if (color != mProgressPaint.getColor()) {
+            mProgressPaint.setColor(color);
+            if (mProgress > 0) {
+                invalidateFrom(RingMetrics.SETTER_PROGRESS);
+            }
+        }
+    }
+
+    public int getProgressColor() {
+        return mProgressPaint.getColor();
+    }
+
+    private void applyProgress(float progress) {
+        float old = mProgress;
+        if (progress == old) {
+            return;
+        }
+        mProgress = progress;
+        if (mBatchDepth > 0 || mGeometryDirty
+                || (mBitmapCacheEnabled && old <= 0)) {
+            // arc bounds unknown, or the cached ring must be replaced by a
+            // full redraw
+            invalidateFrom(RingMetrics.SETTER_PROGRESS);
+            return;
+        }
+        // the stroke and a pixel for antialiasing around the changed arc
+        float[] bounds = mProgressDirty;
+        RingGeometry.arcBounds(mCenterX, mCenterY, mCircleMagicRadius,
+                Math.min(old, progress) * FULL_CIRCLE, Math.max(old, progress) * FULL_CIRCLE,
+                mStrokeWidth / 2 + 1, bounds);
+        if (mMetrics != null) {
+            mMetrics.onInvalidate(RingMetrics.SETTER_PROGRESS);
+        }
+        invalidate((int) Math.floor(bounds[RingGeometry.LEFT]),
+                (int) Math.floor(bounds[RingGeometry.TOP]),
+                (int) Math.ceil(bounds[RingGeometry.RIGHT]),
+                (int) Math.ceil(bounds[RingGeometry.BOTTOM]));
+    }
+
+    private void invalidateSegments() {
+        mBitmapCacheStale = true;
+        invalidateFrom(RingMetrics.SETTER_SEGMENTS);
+    }
+
+    /**
+     * @return text render mode of RingButton, either
+     * {@link #TEXT_RENDER_MODE_PATH} or {@link #TEXT_RENDER_MODE_GLYPHS}
+     *
+     * @attr ref R.styleable#RingButton_textRenderMode
+     */
+    public int getTextRenderMode() {
+        return mTextRenderMode;
+    }
+
+    /**
+     * Sets how the text is rendered along the ring.
+     * {@link #TEXT_RENDER_MODE_GLYPHS} does not need a software layer.
+     *
+     * @attr ref R.styleable#RingButton_textRenderMode
+     */
+    public void setTextRenderMode(int textRenderMode) {
+        if (textRenderMode != TEXT_RENDER_MODE_PATH
+                && textRenderMode != TEXT_RENDER_MODE_GLYPHS) {
+            throw new IllegalArgumentException(
+                    "Unknown text render mode: " + textRenderMode);
+        }
+        if (textRenderMode != mTextRenderMode) {
+            mTextRenderMode = textRenderMode;
+            invalidateGeometry(RingMetrics.SETTER_TEXT_RENDER_MODE);
+        }
+    }
+
+    /**
+     * @return true if the ring is pre-rendered into bitmaps
+     *
+     * @attr ref R.styleable#RingButton_bitmapCacheEnabled
+     */
+    public boolean isBitmapCacheEnabled() {
+        return mBitmapCacheEnabled;
+    }
+
+    /**
+     * Enables drawing the ring from bitmaps rendered once for the normal and
+     * the inverted color state. The bitmaps are rebuilt only when the text,
+     * size, typeface, shadow or colors change, and are released when the view
+     * is detached from the window.
+     *
+     * @attr ref R.styleable#RingButton_bitmapCacheEnabled
+     */
+    public void setBitmapCacheEnabled(boolean enabled) {
+        if (enabled != mBitmapCacheEnabled) {
+            mBitmapCacheEnabled = enabled;
+            if (!enabled) {
+                releaseBitmapCache();
+            }
+            invalidateFrom(RingMetrics.SETTER_BITMAP_CACHE);
+        }
+    }
+
+    /**
+     * @return maximum number of bytes the bitmap cache may use
+     */
+    @SuppressWarnings("unused")
+    public int getBitmapCacheMaxBytes() {
+        return mBitmapCacheMaxBytes;
+    }
+
+    /**
+     * Sets maximum number of bytes used by both cached bitmaps. Rings which
+     * need more are drawn directly.
+     */
+    @SuppressWarnings("unused")
+    public void setBitmapCacheMaxBytes(int maxBytes) {
+        if (maxBytes != mBitmapCacheMaxBytes) {
+            mBitmapCacheMaxBytes = maxBytes;
+            invalidateFrom(RingMetrics.SETTER_BITMAP_CACHE);
+        }
+    }
+
+    /**
+     * @return duration of the color cross-fade on click in milliseconds,
+     * 0 if colors are swapped instantly
+     *
+     * @attr ref R.styleable#RingButton_colorAnimationDuration
+     */
+    public int getColorAnimationDuration() {
+        return mColorAnimationDuration;
+    }
+
+    /**
+     * Sets duration of the color cross-fade and ripple played on click.
+     * All RingButtons share one frame clock, so many animating rings do not
+     * create animators or handlers of their own.
+     *
+     * @param durationMillis duration in milliseconds, 0 to swap instantly
+     *
+     * @attr ref R.styleable#RingButton_colorAnimationDuration
+     */
+    public void setColorAnimationDuration(int durationMillis) {
+        if (durationMillis < 0) {
+            throw new IllegalArgumentException(
+                    "Duration must be >= 0: " + durationMillis);
+        }
+        if (durationMillis == 0) {
+            endColorAnimation();
+        }
+        mColorAnimationDuration = durationMillis;
+    }
+
+    /**
+     * @return speed of the rotating text in degrees per second,
+     * 0 if the marquee is off
+     *
+     * @attr ref R.styleable#RingButton_marqueeSpeed
+     */
+    public float getMarqueeSpeed() {
+        return mMarqueeSpeed;
+    }
+
+    /**
+     * Makes the text rotate continuously around the ring. Each frame only
+     * rotates the canvas over the already laid out (or cached) ring; the
+     * rotation pauses while the view is not visible.
+     *
+     * @param degreesPerSecond rotation speed, 0 to stop the marquee
+     *
+     * @attr ref R.styleable#RingButton_marqueeSpeed
+     */
+    public void setMarqueeSpeed(float degreesPerSecond) {
+        if (degreesPerSecond < 0) {
+            throw new IllegalArgumentException(
+                    "Speed must be >= 0: " + degreesPerSecond);
+        }
+        mMarqueeSpeed = degreesPerSecond;
+        updateMarquee();
+    }
+
+    /**
+     * @return {@link #MARQUEE_DIRECTION_CLOCKWISE} or
+     * {@link #MARQUEE_DIRECTION_COUNTERCLOCKWISE}
+     *
+     * @attr ref R.styleable#RingButton_marqueeDirection
+     */
+    public int getMarqueeDirection() {
+        return mMarqueeDirection;
+    }
+
+    /**
+     * Sets direction in which the text rotates in marquee mode.
+     *
+     * @attr ref R.styleable#RingButton_marqueeDirection
+     */
+    public void setMarqueeDirection(int direction) {
+        if (direction != MARQUEE_DIRECTION_CLOCKWISE
+                && direction != MARQUEE_DIRECTION_COUNTERCLOCKWISE) {
+            throw new IllegalArgumentException(
+                    "Unknown marquee direction: " + direction);
+        }
+        mMarqueeDirection = direction;
+    }
+
+    /**
+     * @return true if the text size is chosen to fill the ring
+     *
+     * @attr ref R.styleable#RingButton_autoFitText
+     */
+    public boolean isAutoFitText() {
+        return mAutoFitText;
+    }
+
+    /**
+     * Makes the text size follow the ring: the largest size at which the
+     * text takes at most {@link #getAutoFitFraction()} of the centerline
+     * circumference is used. Results are cached per text, typeface and
+     * diameter across all RingButtons.
+     *
+     * @attr ref R.styleable#RingButton_autoFitText
+     */
+    public void setAutoFitText(boolean autoFit) {
+        if (autoFit != mAutoFitText) {
+            mAutoFitText = autoFit;
+            if (!autoFit && mRequestedTextSize > 0) {
+                mTextPaint.setTextSize(mRequestedTextSize);
+            }
+            invalidateGeometry(RingMetrics.SETTER_TEXT_SIZE);
+        }
+    }
 
-    private void restoreColors() {
-        Log.i(TAG, "Entered restoreColors()");
-        mCirclePaint.setColor(mSavedRingColor);
-        mTextPaint.setColor(mSavedTextColor);
+    /**
+     * @return fraction of the centerline circumference filled by auto-fitted
+     * text
+     *
+     * @attr ref R.styleable#RingButton_autoFitFraction
+     */
+    public float getAutoFitFraction() {
+        return mAutoFitFraction;
     }
 
+    /**
+     * @param fraction part of the centerline circumference, in (0, 1],
+     *                 the auto-fitted text should fill
+     *
+     * @attr ref R.styleable#RingButton_autoFitFraction
+     */
+    public void setAutoFitFraction(float fraction) {
+        if (fraction <= 0 || fraction > 1) {
+            throw new IllegalArgumentException(
+                    "Fraction must be in (0, 1]: " + fraction);
+        }
+        if (fraction != mAutoFitFraction) {
+            mAutoFitFraction = fraction;
+            if (mAutoFitText) {
+                invalidateGeometry(RingMetrics.SETTER_TEXT_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Limits the sizes the auto-fit search may pick.
+     *
+     * @param minSize smallest text size in pixels
+     * @param maxSize largest text size in pixels, 0 to limit it by the
+     *                stroke width only
+     *
+     * @attr ref R.styleable#RingButton_autoFitMinTextSize
+     * @attr ref R.styleable#RingButton_autoFitMaxTextSize
+     */
+    public void setAutoFitTextSizeRange(float minSize, float maxSize) {
+        if (minSize != mAutoFitMinTextSize || maxSize != mAutoFitMaxTextSize) {
+            mAutoFitMinTextSize = minSize;
+            mAutoFitMaxTextSize = maxSize;
+            if (mAutoFitText) {
+                invalidateGeometry(RingMetrics.SETTER_TEXT_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Starts a set of property changes that are applied together with at
+     * most one invalidate() and one requestLayout(), e.g.
+     * <pre>
+     * ringButton.edit()
+     *         .setText("New")
+     *         .setTextColor(0xFF33B5E5)
+     *         .setRingBackgroundColor(0xFFFFBB33)
+     *         .apply();
+     * </pre>
+     * Values equal to the current ones are skipped.
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Enables or disables cost counters for this RingButton. Enabling
+     * starts from zeroed counters.
+     *
+     * @see #getMetrics()
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled && mMetrics == null) {
+            mMetrics = new RingMetrics();
+        } else if (!enabled) {
+            mMetrics = null;
+        }
+    }
+
+    /**
+     * Describes the ring as it is drawn now, e.g. to render it into a
+     * thumbnail with the ringthumbnails module. The text is laid out glyph
+     * by glyph and the typeface is reduced to its font family.
+     */
+    public RingSpec toRingSpec() {
+        RingSpec.Builder builder = new RingSpec.Builder(mTextPaint.getTextSize())
+                .internalDiameter(mInternalDiameter)
+                .ringColor(mCirclePaint.getColor())
+                .textColor(mTextPaint.getColor())
+                .text(mRingText)
+                .fontFamily(RingTypefaces.getFamilyName(mTextPaint.getTypeface()))
+                .shadow(mShadowRadius, mShadowDx, mShadowDy, mShadowColor)
+                .progress(mProgress)
+                .progressColor(mProgressPaint.getColor());
+        for (int i = 0, n = mSegments.size(); i < n; i++) {
+            RingSegment segment = mSegments.get(i);
+            builder.addSegment(segment.getStartAngle(), segment.getSweepAngle(),
+                    segment.getColor(), segment.getLabel());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return metrics of this RingButton or null if they are disabled
+     *
+     * @see #setMetricsEnabled(boolean)
+     */
+    @Nullable
+    public RingMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /*
+    * ***************************************************************
+    * Save and restore work
+    * BaseSavedState Pattern
+    * from Expert Android (Komatineni S., MacLean D.)
+    * ***************************************************************
+    */
 
     @Override
     protected void onRestoreInstanceState(Parcelable p) {
-        Log.i(TAG, "Entered onRestoreInstanceState()");
+        RingLog.i(TAG, "Entered onRestoreInstanceState()");
         this.onRestoreInstanceStateStandard(p);
-        this.restoreColors();
     }
     @Override
     protected Parcelable onSaveInstanceState() {
-        Log.i(TAG, "Entered onSaveInstanceState()");
+        RingLog.i(TAG, "Entered onSaveInstanceState()");
+        endColorAnimation();
         return this.onSaveInstanceStateStandard();
     }
 
@@ -1052,25 +2054,282 @@ public class RingButton extends View implements View.OnClickListener {
         SavedState ss = (SavedState) state;
         //Peel it and give the child to the super class
         super.onRestoreInstanceState(ss.getSuperState());
-        mSavedRingColor = ss.ringBackgroundColor;
-        mSavedTextColor = ss.textColor;
+        restoreState(ss.state, ss.flags);
     }
     private Parcelable onSaveInstanceStateStandard() {
         Parcelable superState = super.onSaveInstanceState();
+        RingState current = captureState();
+        int flags = current.diff(mInflatedState);
+        if (flags == 0) {
+            // inflation restores everything, nothing to parcel
+            return superState;
+        }
         SavedState ss = new SavedState(superState);
-        ss.ringBackgroundColor = mCirclePaint.getColor();
-        ss.textColor = mTextPaint.getColor();
+        ss.state = current;
+        ss.flags = flags;
         return ss;
     }
 
+    private RingState captureState() {
+        RingState s = new RingState();
+        s.text = mRingText;
+        s.textColor = mTextPaint.getColor();
+        s.ringColor = mCirclePaint.getColor();
+        s.textSize = mRequestedTextSize;
+        s.externalDiameter = mExternalDiameter;
+        s.internalDiameter = mInternalDiameter;
+        s.shadowRadius = mShadowRadius;
+        s.shadowDx = mShadowDx;
+        s.shadowDy = mShadowDy;
+        s.shadowColor = mShadowColor;
+        s.letterSpacing = getLetterSpacing();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            s.elegantTextHeight = mTextPaint.isElegantTextHeight();
+        }
+        s.fontFeatureSettings = getFontFeatureSettings();
+        s.textRenderMode = mTextRenderMode;
+        s.bitmapCacheEnabled = mBitmapCacheEnabled;
+        s.colorAnimationDuration = mColorAnimationDuration;
+        s.marqueeSpeed = mMarqueeSpeed;
+        s.marqueeDirection = mMarqueeDirection;
+        s.autoFitText = mAutoFitText;
+        s.autoFitFraction = mAutoFitFraction;
+        s.autoFitMinTextSize = mAutoFitMinTextSize;
+        s.autoFitMaxTextSize = mAutoFitMaxTextSize;
+        s.progress = mProgress;
+        return s;
+    }
+
+    /**
+     * Applies the saved properties selected by {@code flags} in one batch.
+     */
+    private void restoreState(RingState s, int flags) {
+        beginBatch();
+        if ((flags & RingState.EXTERNAL_DIAMETER) != 0) {
+            setExternalDiameter(s.externalDiameter);
+        }
+        if ((flags & RingState.INTERNAL_DIAMETER) != 0) {
+            setInternalDiameter(s.internalDiameter);
+        }
+        if ((flags & RingState.RING_COLOR) != 0) {
+            setRingBackgroundColor(s.ringColor);
+        }
+        if ((flags & RingState.TEXT_COLOR) != 0) {
+            setTextColor(s.textColor);
+        }
+        if ((flags & RingState.TEXT_RENDER_MODE) != 0) {
+            setTextRenderMode(s.textRenderMode);
+        }
+        if ((flags & RingState.BITMAP_CACHE) != 0) {
+            setBitmapCacheEnabled(s.bitmapCacheEnabled);
+        }
+        if ((flags & RingState.COLOR_ANIMATION_DURATION) != 0) {
+            setColorAnimationDuration(s.colorAnimationDuration);
+        }
+        if ((flags & RingState.MARQUEE) != 0) {
+            setMarqueeDirection(s.marqueeDirection);
+            setMarqueeSpeed(s.marqueeSpeed);
+        }
+        if ((flags & RingState.AUTO_FIT) != 0) {
+            setAutoFitTextSizeRange(s.autoFitMinTextSize, s.autoFitMaxTextSize);
+            setAutoFitFraction(s.autoFitFraction);
+            setAutoFitText(s.autoFitText);
+        }
+        if ((flags & RingState.TEXT_SIZE) != 0) {
+            setRawTextSize(s.textSize);
+        }
+        if ((flags & RingState.ELEGANT_TEXT_HEIGHT) != 0
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            setElegantTextHeight(s.elegantTextHeight);
+        }
+        if ((flags & RingState.LETTER_SPACING) != 0) {
+            setLetterSpacing(s.letterSpacing);
+        }
+        if ((flags & RingState.FONT_FEATURE_SETTINGS) != 0) {
+            setFontFeatureSettings(s.fontFeatureSettings);
+        }
+        if ((flags & RingState.SHADOW) != 0) {
+            setShadowLayer(s.shadowRadius, s.shadowDx, s.shadowDy, s.shadowColor);
+        }
+        if ((flags & RingState.TEXT) != 0 && s.text != null) {
+            setText(s.text);
+        }
+        if ((flags & RingState.PROGRESS) != 0) {
+            mPendingProgressBits.set(Float.floatToIntBits(s.progress));
+            applyProgress(s.progress);
+        }
+        endBatch();
+    }
+
+    /**
+     * Collects RingButton property changes and applies them in one pass.
+     *
+     * @see RingButton#edit()
+     */
+    public final class Editor {
+        private String mText;
+        private Integer mTextColor;
+        private Float mRawTextSize;
+        private Float mLetterSpacing;
+        private Boolean mElegantTextHeight;
+        private String mFontFeatureSettings;
+        private boolean mTypefaceSet;
+        private Typeface mTypeface;
+        private int mTypefaceStyle = -1;
+        private boolean mShadowSet;
+        private float mShadowRadius, mShadowDx, mShadowDy;
+        private int mShadowColor;
+        private Integer mRingBackgroundColor;
+        private Integer mExternalDiameter;
+        private Integer mInternalDiameter;
+
+        private Editor() { }
+
+        public Editor setText(String text) {
+            mText = text;
+            return this;
+        }
+
+        public Editor setTextColor(int color) {
+            mTextColor = color;
+            return this;
+        }
+
+        /**
+         * @see RingButton#setTextSize(int, float)
+         */
+        public Editor setTextSize(int unit, float size) {
+            Context c = getContext();
+            Resources r = c == null ? Resources.getSystem() : c.getResources();
+            mRawTextSize = TypedValue.applyDimension(unit, size, r.getDisplayMetrics());
+            return this;
+        }
+
+        public Editor setLetterSpacing(float letterSpacing) {
+            mLetterSpacing = letterSpacing;
+            return this;
+        }
+
+        public Editor setElegantTextHeight(boolean elegant) {
+            mElegantTextHeight = elegant;
+            return this;
+        }
+
+        public Editor setFontFeatureSettings(String fontFeatureSettings) {
+            mFontFeatureSettings = fontFeatureSettings;
+            return this;
+        }
+
+        public Editor setTypeface(Typeface tf) {
+            mTypefaceSet = true;
+            mTypeface = tf;
+            mTypefaceStyle = -1;
+            return this;
+        }
+
+        public Editor setTypeface(Typeface tf, int style) {
+            mTypefaceSet = true;
+            mTypeface = tf;
+            mTypefaceStyle = style;
+            return this;
+        }
+
+        public Editor setShadowLayer(float radius, float dx, float dy, int color) {
+            mShadowSet = true;
+            mShadowRadius = radius;
+            mShadowDx = dx;
+            mShadowDy = dy;
+            mShadowColor = color;
+            return this;
+        }
+
+        public Editor setRingBackgroundColor(int color) {
+            mRingBackgroundColor = color;
+            return this;
+        }
+
+        public Editor setExternalDiameter(int externalDiameter) {
+            mExternalDiameter = externalDiameter;
+            return this;
+        }
+
+        public Editor setInternalDiameter(int internalDiameter) {
+            mInternalDiameter = internalDiameter;
+            return this;
+        }
+
+        /**
+         * Applies the collected changes, issuing at most one invalidate()
+         * and one requestLayout().
+         */
+        public void apply() {
+            beginBatch();
+            try {
+                applyChanges();
+            } finally {
+                endBatch();
+            }
+        }
+
+        private void applyChanges() {
+            if (mExternalDiameter != null) {
+                RingButton.this.setExternalDiameter(mExternalDiameter);
+            }
+            if (mInternalDiameter != null) {
+                RingButton.this.setInternalDiameter(mInternalDiameter);
+            }
+            if (mRingBackgroundColor != null) {
+                RingButton.this.setRingBackgroundColor(mRingBackgroundColor);
+            }
+            if (mTextColor != null) {
+                RingButton.this.setTextColor(mTextColor);
+            }
+            if (mRawTextSize != null) {
+                setRawTextSize(mRawTextSize);
+            }
+            if (mElegantTextHeight != null) {
+                RingButton.this.setElegantTextHeight(mElegantTextHeight);
+            }
+            if (mLetterSpacing != null) {
+                RingButton.this.setLetterSpacing(mLetterSpacing);
+            }
+            if (mFontFeatureSettings != null) {
+                RingButton.this.setFontFeatureSettings(mFontFeatureSettings);
+            }
+            if (mTypefaceSet) {
+                if (mTypefaceStyle >= 0) {
+                    RingButton.this.setTypeface(mTypeface, mTypefaceStyle);
+                } else {
+                    RingButton.this.setTypeface(mTypeface);
+                }
+            }
+            if (mShadowSet && (mShadowRadius != RingButton.this.mShadowRadius
+                    || mShadowDx != RingButton.this.mShadowDx
+                    || mShadowDy != RingButton.this.mShadowDy
+                    || mShadowColor != RingButton.this.mShadowColor)) {
+                RingButton.this.setShadowLayer(mShadowRadius, mShadowDx, mShadowDy,
+                        mShadowColor);
+            }
+            if (mText != null) {
+                RingButton.this.setText(mText);
+            }
+        }
+    }
+
     /*
     * ***************************************************************
     * Saved State inner static class
     * ***************************************************************
     */
     public static class SavedState extends BaseSavedState {
-        int ringBackgroundColor;
-        int textColor;
+        // layout of the parceled properties, bump on any change to RingState
+        private static final int VERSION = 3;
+        // stands in for a parcel written by another version, with no flags set
+        private static final RingState EMPTY_STATE = new RingState();
+
+        RingState state = EMPTY_STATE;
+        // RingState flags of the properties that differ from the inflated ones
+        int flags;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -1079,21 +2338,37 @@ public class RingButton extends View implements View.OnClickListener {
         @Override
         public void writeToParcel(@NonNull Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeInt(ringBackgroundColor);
-            out.writeInt(textColor);
+            // the size lets a reader of another version skip the payload
+            int sizePosition = out.dataPosition();
+            out.writeInt(0);
+            out.writeInt(VERSION);
+            out.writeInt(this.flags);
+            state.writeToParcel(out, this.flags);
+            int end = out.dataPosition();
+            out.setDataPosition(sizePosition);
+            out.writeInt(end - sizePosition);
+            out.setDataPosition(end);
         }
 
         //Read back the values
         private SavedState(Parcel in) {
             super(in);
-            ringBackgroundColor = in.readInt();
-            textColor = in.readInt();
+            int start = in.dataPosition();
+            int size = in.readInt();
+            if (in.readInt() == VERSION) {
+                flags = in.readInt();
+                state = new RingState();
+                state.readFromParcel(in, flags);
+            }
+            // otherwise state stays EMPTY_STATE and flags 0: nothing is restored
+            in.setDataPosition(start + size);
         }
 
         @Override
         public String toString() {
-            return "RingButton ringBackgroundColor: " + ringBackgroundColor
-                    + " , textColor: " + textColor;
+            return "RingButton SavedState version: " + VERSION
+                    + " , changed properties: 0x" + Integer.toHexString(flags)
+                    + " , text: " + state.text;
         }
 
         @SuppressWarnings("hiding")
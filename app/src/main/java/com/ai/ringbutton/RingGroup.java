@@ -0,0 +1,665 @@
+package com.ai.ringbutton;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+import com.ai.ringbutton.render.RingPainter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Draws many rings in a single View.
+ * <p>
+ * Screens with hundreds of RingButtons pay a measure/layout/draw traversal,
+ * two Paints and a Path per ring. A RingGroup keeps lightweight
+ * {@link Ring} models instead, draws them all in one onDraw with shared
+ * paints and resolves taps through an interval tree over the horizontal
+ * extents of the rings. A tap costs O(log N + K), where K is the number
+ * of rings whose extent contains the tap's x, e.g. one column of a grid.
+ * <p>
+ * Rings have the same properties as a RingButton and invert their colors
+ * when clicked. Text is laid out glyph by glyph like
+ * {@link RingButton#TEXT_RENDER_MODE_GLYPHS}, so hardware acceleration can
+ * stay on. The XML attributes of the group set the defaults of the rings
+ * added with {@link #addRing(float, float, int)}.
+ *
+ * @attr ref R.styleable#RingGroup_internalDiameter
+ * @attr ref R.styleable#RingGroup_ringBackgroundColor
+ * @attr ref R.styleable#RingGroup_android_textColor
+ * @attr ref R.styleable#RingGroup_android_textSize
+ * @attr ref R.styleable#RingGroup_android_fontFamily
+ * @attr ref R.styleable#RingGroup_android_typeface
+ * @attr ref R.styleable#RingGroup_android_textStyle
+ * @attr ref R.styleable#RingGroup_android_shadowColor
+ * @attr ref R.styleable#RingGroup_android_shadowDx
+ * @attr ref R.styleable#RingGroup_android_shadowDy
+ * @attr ref R.styleable#RingGroup_android_shadowRadius
+ */
+public class RingGroup extends View {
+
+    /**
+     * Receives clicks on the rings of a RingGroup.
+     */
+    public interface OnRingClickListener {
+        void onRingClick(RingGroup group, Ring ring);
+    }
+
+    private final ArrayList<Ring> mRings = new ArrayList<Ring>();
+    private final Paint mCirclePaint = new Paint();
+    private final TextPaint mTextPaint = new TextPaint();
+    private final CanvasRingSurface mSurface = new CanvasRingSurface(mCirclePaint, mTextPaint);
+    // typeface of the rings without their own
+    private Typeface mTypeface;
+
+    // defaults of new rings
+    private int mDefaultInternalDiameter = -1;
+    private int mDefaultRingColor = RingButton.DEFAULT_RING_COLOR;
+    private int mDefaultTextColor = RingButton.DEFAULT_TEXT_COLOR;
+    private float mDefaultTextSize;
+    private float mDefaultShadowRadius, mDefaultShadowDx, mDefaultShadowDy;
+    private int mDefaultShadowColor;
+
+    // Implicit interval tree, rebuilt when rings are added or moved: rings
+    // sorted by left edge, the node of the subrange [lo, hi) is at
+    // (lo + hi) / 2 and mIndexMaxRight holds the rightmost edge in it.
+    private Ring[] mIndex = new Ring[0];
+    private float[] mIndexMaxRight = new float[0];
+    private boolean mIndexDirty;
+
+    private Ring mPressedRing;
+    private OnRingClickListener mOnRingClickListener;
+
+    private static final Comparator<Ring> BY_LEFT = new Comparator<Ring>() {
+        @Override
+        public int compare(Ring a, Ring b) {
+            return Float.compare(a.getLeft(), b.getLeft());
+        }
+    };
+
+    public RingGroup(Context context) {
+        this(context, null);
+    }
+
+    public RingGroup(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public RingGroup(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mCirclePaint.setAntiAlias(true);
+        mCirclePaint.setStyle(Paint.Style.STROKE);
+        mTextPaint.setAntiAlias(true);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mDefaultTextSize = RingButton.getDefaultTextSize(getResources().getDisplayMetrics());
+
+        String fontFamily = null;
+        int typefaceIndex = -1;
+        int styleIndex = -1;
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RingGroup,
+                defStyleAttr, 0);
+        try {
+            int n = a.getIndexCount();
+            for (int i = 0; i < n; i++) {
+                int attr = a.getIndex(i);
+                switch (attr) {
+                    case R.styleable.RingGroup_internalDiameter:
+                        mDefaultInternalDiameter = a.getDimensionPixelSize(attr, -1);
+                        break;
+
+                    case R.styleable.RingGroup_ringBackgroundColor:
+                        mDefaultRingColor = a.getColor(attr, mDefaultRingColor);
+                        break;
+
+                    case R.styleable.RingGroup_android_textColor:
+                        mDefaultTextColor = a.getColor(attr, mDefaultTextColor);
+                        break;
+
+                    case R.styleable.RingGroup_android_textSize:
+                        mDefaultTextSize = a.getDimensionPixelSize(attr, 0);
+                        break;
+
+                    case R.styleable.RingGroup_android_fontFamily:
+                        fontFamily = a.getString(attr);
+                        break;
+
+                    case R.styleable.RingGroup_android_typeface:
+                        typefaceIndex = a.getInt(attr, -1);
+                        break;
+
+                    case R.styleable.RingGroup_android_textStyle:
+                        styleIndex = a.getInt(attr, -1);
+                        break;
+
+                    case R.styleable.RingGroup_android_shadowColor:
+                        mDefaultShadowColor = a.getInt(attr, 0);
+                        break;
+
+                    case R.styleable.RingGroup_android_shadowDx:
+                        mDefaultShadowDx = a.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.RingGroup_android_shadowDy:
+                        mDefaultShadowDy = a.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.RingGroup_android_shadowRadius:
+                        mDefaultShadowRadius = a.getFloat(attr, 0);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            a.recycle();
+        }
+
+        Typeface tf = fontFamily != null ? RingTypefaces.create(fontFamily, styleIndex) : null;
+        if (tf == null && (typefaceIndex != -1 || styleIndex != -1)) {
+            tf = RingTypefaces.create(RingTypefaces.forTypefaceIndex(typefaceIndex), styleIndex);
+        }
+        mTypeface = tf != null ? tf
+                : RingTypefaces.create(RingTypefaces.DEFAULT_FAMILY, Typeface.NORMAL);
+    }
+
+    /**
+     * Adds a ring with the default colors, text size and shadow of the group.
+     *
+     * @param centerX          horizontal center in the group's coordinate system
+     * @param centerY          vertical center in the group's coordinate system
+     * @param externalDiameter external diameter in pixels
+     * @return the new ring, whose properties can be changed at any time
+     */
+    public Ring addRing(float centerX, float centerY, int externalDiameter) {
+        Ring ring = new Ring(this, centerX, centerY, externalDiameter, mDefaultTextSize);
+        ring.mInternalDiameter = mDefaultInternalDiameter;
+        ring.mRingColor = mDefaultRingColor;
+        ring.mTextColor = mDefaultTextColor;
+        ring.mShadowRadius = mDefaultShadowRadius;
+        ring.mShadowDx = mDefaultShadowDx;
+        ring.mShadowDy = mDefaultShadowDy;
+        ring.mShadowColor = mDefaultShadowColor;
+        mRings.add(ring);
+        onRingMoved();
+        return ring;
+    }
+
+    public void removeRing(Ring ring) {
+        if (mRings.remove(ring)) {
+            ring.mGroup = null;
+            if (mPressedRing == ring) {
+                mPressedRing = null;
+            }
+            onRingMoved();
+        }
+    }
+
+    public void removeAllRings() {
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            mRings.get(i).mGroup = null;
+        }
+        mRings.clear();
+        mPressedRing = null;
+        onRingMoved();
+    }
+
+    public int getRingCount() {
+        return mRings.size();
+    }
+
+    /**
+     * @return ring in drawing order, later rings are drawn on top
+     */
+    public Ring getRingAt(int index) {
+        return mRings.get(index);
+    }
+
+    /**
+     * Sets the typeface of the text of the rings without a typeface of
+     * their own.
+     *
+     * @see Ring#setTypeface(Typeface)
+     */
+    public void setTypeface(@Nullable Typeface tf) {
+        if (mTypeface != tf) {
+            mTypeface = tf;
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                Ring ring = mRings.get(i);
+                if (ring.mTypeface == null) {
+                    ring.mLayoutDirty = true;
+                }
+            }
+            invalidate();
+        }
+    }
+
+    public Typeface getTypeface() {
+        return mTypeface;
+    }
+
+    public void setOnRingClickListener(@Nullable OnRingClickListener listener) {
+        mOnRingClickListener = listener;
+    }
+
+    /**
+     * Finds the topmost ring whose annulus contains the point.
+     *
+     * @param x horizontal coordinate in the group's coordinate system
+     * @param y vertical coordinate in the group's coordinate system
+     * @return the ring or null if the point is not on any ring
+     */
+    @Nullable
+    public Ring findRingAt(float x, float y) {
+        if (mIndexDirty) {
+            rebuildIndex();
+        }
+        return findRingAt(0, mIndex.length, x, y, null);
+    }
+
+    /**
+     * Searches the subtree of the rings in [lo, hi) of the index.
+     *
+     * @param hit topmost ring found so far or null
+     * @return topmost ring containing the point, {@code hit} if none is above it
+     */
+    private Ring findRingAt(int lo, int hi, float x, float y, Ring hit) {
+        Ring[] index = mIndex;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (mIndexMaxRight[mid] < x) {
+                // no ring of this subtree reaches x
+                return hit;
+            }
+            hit = findRingAt(lo, mid, x, y, hit);
+            Ring ring = index[mid];
+            if (ring.getLeft() > x) {
+                // neither does any ring right of it, they all start later
+                return hit;
+            }
+            if ((hit == null || ring.mOrder > hit.mOrder) && ring.contains(x, y)) {
+                hit = ring;
+            }
+            lo = mid + 1;
+        }
+        return hit;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // wrap_content covers all rings
+        float right = 0;
+        float bottom = 0;
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            Ring ring = mRings.get(i);
+            float r = ring.mExternalDiameter / 2.0f;
+            right = Math.max(right, ring.mCenterX + r);
+            bottom = Math.max(bottom, ring.mCenterY + r);
+        }
+        setMeasuredDimension(
+                resolveSize((int) Math.ceil(right) + getPaddingRight(), widthMeasureSpec),
+                resolveSize((int) Math.ceil(bottom) + getPaddingBottom(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        CanvasRingSurface surface = mSurface.wrap(canvas);
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            mRings.get(i).draw(surface, mTextPaint, mTypeface);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(@NonNull MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mPressedRing = findRingAt(event.getX(), event.getY());
+                return mPressedRing != null;
+            case MotionEvent.ACTION_UP:
+                Ring pressed = mPressedRing;
+                mPressedRing = null;
+                if (pressed != null && pressed == findRingAt(event.getX(), event.getY())) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    performRingClick(pressed);
+                }
+                return pressed != null;
+            case MotionEvent.ACTION_CANCEL:
+                mPressedRing = null;
+                return false;
+            default:
+                return mPressedRing != null;
+        }
+    }
+
+    /**
+     * Inverts the colors of the ring and notifies the listener, like a
+     * click on a RingButton.
+     */
+    public void performRingClick(Ring ring) {
+        ring.invertColors();
+        if (mOnRingClickListener != null) {
+            mOnRingClickListener.onRingClick(this, ring);
+        }
+    }
+
+    private void onRingMoved() {
+        mIndexDirty = true;
+        requestLayout();
+        invalidate();
+    }
+
+    private void rebuildIndex() {
+        int n = mRings.size();
+        if (mIndex.length != n) {
+            mIndex = new Ring[n];
+            mIndexMaxRight = new float[n];
+        }
+        for (int i = 0; i < n; i++) {
+            Ring ring = mRings.get(i);
+            ring.mOrder = i;
+            mIndex[i] = ring;
+        }
+        Arrays.sort(mIndex, BY_LEFT);
+        computeMaxRight(0, n);
+        mIndexDirty = false;
+    }
+
+    /**
+     * Fills mIndexMaxRight for the subtree of the rings in [lo, hi).
+     *
+     * @return rightmost edge of the subtree
+     */
+    private float computeMaxRight(int lo, int hi) {
+        if (lo >= hi) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        int mid = (lo + hi) >>> 1;
+        float maxRight = Math.max(mIndex[mid].getRight(),
+                Math.max(computeMaxRight(lo, mid), computeMaxRight(mid + 1, hi)));
+        mIndexMaxRight[mid] = maxRight;
+        return maxRight;
+    }
+
+    /**
+     * One ring drawn by a RingGroup. Setters redraw the group; only the
+     * text layout of the changed ring is recomputed.
+     */
+    public static final class Ring {
+        private RingGroup mGroup;
+        private int mOrder;
+
+        private float mCenterX, mCenterY;
+        private int mExternalDiameter;
+        private int mInternalDiameter = -1;
+        private int mRingColor = RingButton.DEFAULT_RING_COLOR;
+        private int mTextColor = RingButton.DEFAULT_TEXT_COLOR;
+        private float mTextSize;
+        private String mText;
+        private Typeface mTypeface;
+        private float mShadowRadius, mShadowDx, mShadowDy;
+        private int mShadowColor;
+        private Object mTag;
+
+        // glyph layout, recomputed when the text, its size or the ring changes
+        private boolean mLayoutDirty = true;
+        private float mStrokeWidth;
+        private float mCircleMagicRadius;
+        private float mTextVOffset;
+        private char[] mTextChars = new char[0];
+        private float[] mGlyphWidths = new float[0];
+        private float[] mGlyphAngles = new float[0];
+
+        private Ring(RingGroup group, float centerX, float centerY,
+                     int externalDiameter, float textSize) {
+            mGroup = group;
+            mCenterX = centerX;
+            mCenterY = centerY;
+            mExternalDiameter = externalDiameter;
+            mTextSize = textSize;
+        }
+
+        public float getCenterX() {
+            return mCenterX;
+        }
+
+        public float getCenterY() {
+            return mCenterY;
+        }
+
+        public Ring setCenter(float centerX, float centerY) {
+            if (centerX != mCenterX || centerY != mCenterY) {
+                mCenterX = centerX;
+                mCenterY = centerY;
+                if (mGroup != null) {
+                    mGroup.onRingMoved();
+                }
+            }
+            return this;
+        }
+
+        public int getExternalDiameter() {
+            return mExternalDiameter;
+        }
+
+        public Ring setExternalDiameter(int externalDiameter) {
+            if (externalDiameter != mExternalDiameter) {
+                mExternalDiameter = externalDiameter;
+                mLayoutDirty = true;
+                if (mGroup != null) {
+                    mGroup.onRingMoved();
+                }
+            }
+            return this;
+        }
+
+        public int getInternalDiameter() {
+            return mInternalDiameter;
+        }
+
+        /**
+         * @param internalDiameter diameter in pixels, or -1 for a quarter of
+         *                         the external diameter as in RingButton
+         */
+        public Ring setInternalDiameter(int internalDiameter) {
+            if (internalDiameter != mInternalDiameter) {
+                mInternalDiameter = internalDiameter;
+                onLayoutChanged();
+            }
+            return this;
+        }
+
+        public int getRingBackgroundColor() {
+            return mRingColor;
+        }
+
+        public Ring setRingBackgroundColor(int color) {
+            if (color != mRingColor) {
+                mRingColor = color;
+                invalidateGroup();
+            }
+            return this;
+        }
+
+        public int getTextColor() {
+            return mTextColor;
+        }
+
+        public Ring setTextColor(int color) {
+            if (color != mTextColor) {
+                mTextColor = color;
+                invalidateGroup();
+            }
+            return this;
+        }
+
+        public float getTextSize() {
+            return mTextSize;
+        }
+
+        /**
+         * @param size text size in pixels
+         */
+        public Ring setTextSize(float size) {
+            if (size != mTextSize) {
+                mTextSize = size;
+                onLayoutChanged();
+            }
+            return this;
+        }
+
+        public String getText() {
+            return mText;
+        }
+
+        public Ring setText(@Nullable String text) {
+            if (text == null ? mText != null : !text.equals(mText)) {
+                mText = text;
+                mTextChars = text != null ? text.toCharArray() : new char[0];
+                onLayoutChanged();
+            }
+            return this;
+        }
+
+        /**
+         * @return typeface of this ring, null if it uses the group's
+         */
+        public Typeface getTypeface() {
+            return mTypeface;
+        }
+
+        /**
+         * @param tf typeface of this ring, or null for the group's
+         * @see RingGroup#setTypeface(Typeface)
+         */
+        public Ring setTypeface(@Nullable Typeface tf) {
+            if (tf != mTypeface) {
+                mTypeface = tf;
+                onLayoutChanged();
+            }
+            return this;
+        }
+
+        /**
+         * Gives the text a shadow, like {@link RingButton#setShadowLayer}.
+         *
+         * @param radius blur radius, 0 for no shadow
+         */
+        public Ring setShadowLayer(float radius, float dx, float dy, int color) {
+            if (radius != mShadowRadius || dx != mShadowDx || dy != mShadowDy
+                    || color != mShadowColor) {
+                mShadowRadius = radius;
+                mShadowDx = dx;
+                mShadowDy = dy;
+                mShadowColor = color;
+                invalidateGroup();
+            }
+            return this;
+        }
+
+        public float getShadowRadius() {
+            return mShadowRadius;
+        }
+
+        public float getShadowDx() {
+            return mShadowDx;
+        }
+
+        public float getShadowDy() {
+            return mShadowDy;
+        }
+
+        public int getShadowColor() {
+            return mShadowColor;
+        }
+
+        public Object getTag() {
+            return mTag;
+        }
+
+        /**
+         * Attaches arbitrary data, e.g. to identify the ring in
+         * {@link OnRingClickListener#onRingClick(RingGroup, Ring)}.
+         */
+        public Ring setTag(Object tag) {
+            mTag = tag;
+            return this;
+        }
+
+        void invertColors() {
+            int tmp = mRingColor;
+            mRingColor = mTextColor;
+            mTextColor = tmp;
+            invalidateGroup();
+        }
+
+        boolean contains(float x, float y) {
+            return RingGeometry.isInAnnulus(x - mCenterX, y - mCenterY,
+                    getInternalDiameterPx() / 2.0f, mExternalDiameter / 2.0f);
+        }
+
+        void draw(CanvasRingSurface surface, TextPaint textPaint, Typeface groupTypeface) {
+            Typeface tf = mTypeface != null ? mTypeface : groupTypeface;
+            if (textPaint.getTypeface() != tf) {
+                textPaint.setTypeface(tf);
+            }
+            surface.setTextStyle(mTextSize, mShadowRadius, mShadowDx, mShadowDy, mShadowColor);
+            if (mLayoutDirty) {
+                layout(textPaint);
+            }
+            surface.drawRing(mCenterX, mCenterY, mCircleMagicRadius, mStrokeWidth, mRingColor);
+            RingPainter.drawGlyphs(surface, mCenterX, mCenterY, mCircleMagicRadius,
+                    mTextVOffset, mTextChars, mTextChars.length, mGlyphAngles, mTextColor);
+        }
+
+        private void layout(TextPaint textPaint) {
+            float intDiameter = getInternalDiameterPx();
+            mStrokeWidth = RingGeometry.strokeWidth(mExternalDiameter, intDiameter);
+            mCircleMagicRadius = RingGeometry.centerlineRadius(mExternalDiameter, intDiameter);
+            mTextVOffset = RingTextLayout.computeVOffset(textPaint);
+            int n = mTextChars.length;
+            if (mGlyphWidths.length < n) {
+                mGlyphWidths = new float[n];
+                mGlyphAngles = new float[n];
+            }
+            RingTextLayout.computeGlyphAngles(textPaint, mTextChars, mCircleMagicRadius,
+                    mGlyphWidths, mGlyphAngles);
+            mLayoutDirty = false;
+        }
+
+        private float getLeft() {
+            return mCenterX - mExternalDiameter / 2.0f;
+        }
+
+        private float getRight() {
+            return mCenterX + mExternalDiameter / 2.0f;
+        }
+
+        private float getInternalDiameterPx() {
+            return RingGeometry.resolveInternalDiameter(mExternalDiameter, mInternalDiameter);
+        }
+
+        private void onLayoutChanged() {
+            mLayoutDirty = true;
+            invalidateGroup();
+        }
+
+        private void invalidateGroup() {
+            if (mGroup != null) {
+                mGroup.invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.ai.ringbutton;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+
+/**
+ * Places its children evenly around a ring, centered on the ring
+ * centerline and starting at 12 o'clock, e.g. icons or counters around a
+ * RingButton of the same size.
+ * <p>
+ * The ring geometry follows RingButton: the external diameter defaults to
+ * the smaller side of the layout and the internal diameter to
+ * {@link RingGeometry#INTERNAL_DIAMETER_FRACTION} of the external one.
+ * Children are measured against the ring stroke width.
+ * <p>
+ * The angle table is cached per child count. Only children that were added,
+ * requested a layout or whose position changed are measured and laid out
+ * again, so adding or removing a child does not re-measure the others.
+ *
+ * @attr ref R.styleable#RingLayout_externalDiameter
+ * @attr ref R.styleable#RingLayout_internalDiameter
+ */
+public class RingLayout extends ViewGroup {
+
+    private int mExternalDiameter = -1;
+    private int mInternalDiameter = -1;
+
+    // ring geometry for the last measured size
+    private float mCircleMagicRadius;
+    private int mStrokeWidth;
+    private int mLastWidthSpec, mLastHeightSpec;
+
+    // unit vectors of the child positions, valid for mAngleCount children
+    private int mAngleCount = -1;
+    private float[] mSin = new float[0];
+    private float[] mCos = new float[0];
+
+    public RingLayout(Context context) {
+        this(context, null);
+    }
+
+    public RingLayout(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public RingLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RingLayout,
+                defStyleAttr, 0);
+        mExternalDiameter = a.getDimensionPixelSize(R.styleable.RingLayout_externalDiameter, -1);
+        mInternalDiameter = a.getDimensionPixelSize(R.styleable.RingLayout_internalDiameter, -1);
+        a.recycle();
+    }
+
+    /**
+     * @return external diameter in pixels or -1 if it follows the layout size
+     *
+     * @attr ref R.styleable#RingLayout_externalDiameter
+     */
+    public int getExternalDiameter() {
+        return mExternalDiameter;
+    }
+
+    /**
+     * @attr ref R.styleable#RingLayout_externalDiameter
+     */
+    public void setExternalDiameter(int externalDiameter) {
+        if (externalDiameter != mExternalDiameter) {
+            mExternalDiameter = externalDiameter;
+            requestLayout();
+        }
+    }
+
+    /**
+     * @return internal diameter in pixels or -1 for the RingButton default
+     *
+     * @attr ref R.styleable#RingLayout_internalDiameter
+     */
+    public int getInternalDiameter() {
+        return mInternalDiameter;
+    }
+
+    /**
+     * @attr ref R.styleable#RingLayout_internalDiameter
+     */
+    public void setInternalDiameter(int internalDiameter) {
+        if (internalDiameter != mInternalDiameter) {
+            mInternalDiameter = internalDiameter;
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = mExternalDiameter > 0
+                ? resolveSize(mExternalDiameter + getPaddingLeft() + getPaddingRight(),
+                widthMeasureSpec)
+                : getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        int height = mExternalDiameter > 0
+                ? resolveSize(mExternalDiameter + getPaddingTop() + getPaddingBottom(),
+                heightMeasureSpec)
+                : getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+        setMeasuredDimension(width, height);
+
+        int available = Math.min(width - getPaddingLeft() - getPaddingRight(),
+                height - getPaddingTop() - getPaddingBottom());
+        float extDiameter = mExternalDiameter > 0
+                ? Math.min(mExternalDiameter, available) : available;
+        float intDiameter = RingGeometry.resolveInternalDiameter(extDiameter, mInternalDiameter);
+        int strokeWidth = Math.max(0,
+                Math.round(RingGeometry.strokeWidth(extDiameter, intDiameter)));
+        mCircleMagicRadius = RingGeometry.centerlineRadius(extDiameter, intDiameter);
+
+        boolean remeasureAll = strokeWidth != mStrokeWidth
+                || widthMeasureSpec != mLastWidthSpec || heightMeasureSpec != mLastHeightSpec;
+        mStrokeWidth = strokeWidth;
+        mLastWidthSpec = widthMeasureSpec;
+        mLastHeightSpec = heightMeasureSpec;
+
+        int childSpec = MeasureSpec.makeMeasureSpec(strokeWidth, MeasureSpec.AT_MOST);
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (remeasureAll || lp.mNeedsMeasure || child.isLayoutRequested()) {
+                child.measure(getChildMeasureSpec(childSpec, 0, lp.width),
+                        getChildMeasureSpec(childSpec, 0, lp.height));
+                lp.mNeedsMeasure = false;
+            }
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int count = 0;
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            if (getChildAt(i).getVisibility() != GONE) {
+                count++;
+            }
+        }
+        if (count != mAngleCount) {
+            buildAngleTable(count);
+        }
+
+        float cx = getPaddingLeft() + (r - l - getPaddingLeft() - getPaddingRight()) / 2.0f;
+        float cy = getPaddingTop() + (b - t - getPaddingTop() - getPaddingBottom()) / 2.0f;
+        int k = 0;
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            int w = child.getMeasuredWidth();
+            int h = child.getMeasuredHeight();
+            int left = Math.round(cx + mCircleMagicRadius * mSin[k] - w / 2.0f);
+            int top = Math.round(cy - mCircleMagicRadius * mCos[k] - h / 2.0f);
+            k++;
+            // children in place keep their bounds unless they asked for a layout
+            if (left != child.getLeft() || top != child.getTop()
+                    || left + w != child.getRight() || top + h != child.getBottom()
+                    || child.isLayoutRequested()) {
+                child.layout(left, top, left + w, top + h);
+            }
+        }
+    }
+
+    /**
+     * Computes the directions of {@code count} evenly spaced positions,
+     * clockwise from 12 o'clock.
+     */
+    private void buildAngleTable(int count) {
+        if (mSin.length < count) {
+            mSin = new float[count];
+            mCos = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            mSin[i] = (float) Math.sin(angle);
+            mCos[i] = (float) Math.cos(angle);
+        }
+        mAngleCount = count;
+    }
+
+    @Override
+    public void addView(View child, int index, ViewGroup.LayoutParams params) {
+        markNeedsMeasure(params);
+        super.addView(child, index, params);
+    }
+
+    @Override
+    protected boolean addViewInLayout(View child, int index, ViewGroup.LayoutParams params,
+                                      boolean preventRequestLayout) {
+        markNeedsMeasure(params);
+        return super.addViewInLayout(child, index, params, preventRequestLayout);
+    }
+
+    /**
+     * A child that is removed and added again may bring back the params it
+     * was measured with, so every add measures the child again. Other params
+     * are converted by {@link #generateLayoutParams(ViewGroup.LayoutParams)}
+     * and start out unmeasured.
+     */
+    private static void markNeedsMeasure(ViewGroup.LayoutParams params) {
+        if (params instanceof LayoutParams) {
+            ((LayoutParams) params).mNeedsMeasure = true;
+        }
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    /**
+     * Layout params of RingLayout children. They track whether the child
+     * was measured since it was added.
+     */
+    public static class LayoutParams extends ViewGroup.LayoutParams {
+        boolean mNeedsMeasure = true;
+
+        public LayoutParams(Context c, AttributeSet attrs) {
+            super(c, attrs);
+        }
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ai.ringbutton;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logging facade for RingButton hot paths (onDraw, onMeasure, onTouchEvent).
+ * <p>
+ * All calls are no-ops unless {@link BuildConfig#DEBUG} is set; release builds
+ * strip them entirely through the -assumenosideeffects rule in
+ * proguard-rules.pro. Callers should pass constant messages so that no
+ * string is built when logging is off.
+ * <p>
+ * In trace mode messages are recorded to an in-memory ring buffer instead
+ * of logcat, which avoids the logcat IPC cost inside frame traces.
+ */
+public final class RingLog {
+
+    private static final int DEFAULT_TRACE_CAPACITY = 256;
+
+    private static volatile boolean sTraceEnabled;
+
+    private static final Object TRACE_LOCK = new Object();
+    private static long[] sTraceTimes = new long[DEFAULT_TRACE_CAPACITY];
+    private static String[] sTraceTags = new String[DEFAULT_TRACE_CAPACITY];
+    private static String[] sTraceMessages = new String[DEFAULT_TRACE_CAPACITY];
+    private static int sTraceNext;
+    private static int sTraceSize;
+
+    private RingLog() { }
+
+    /**
+     * Logs an info message, or records it to the trace buffer in trace mode.
+     */
+    public static void i(String tag, String msg) {
+        if (!BuildConfig.DEBUG) {
+            return;
+        }
+        if (sTraceEnabled) {
+            record(tag, msg);
+        } else {
+            Log.i(tag, msg);
+        }
+    }
+
+    /**
+     * Logs a verbose message, or records it to the trace buffer in trace mode.
+     */
+    public static void v(String tag, String msg) {
+        if (!BuildConfig.DEBUG) {
+            return;
+        }
+        if (sTraceEnabled) {
+            record(tag, msg);
+        } else {
+            Log.v(tag, msg);
+        }
+    }
+
+    /**
+     * Switches between logcat output and recording to the in-memory
+     * ring buffer.
+     */
+    public static void setTraceEnabled(boolean enabled) {
+        sTraceEnabled = enabled;
+    }
+
+    public static boolean isTraceEnabled() {
+        return sTraceEnabled;
+    }
+
+    /**
+     * Sets the number of entries kept in the trace buffer and clears it.
+     */
+    public static void setTraceCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        }
+        synchronized (TRACE_LOCK) {
+            sTraceTimes = new long[capacity];
+            sTraceTags = new String[capacity];
+            sTraceMessages = new String[capacity];
+            sTraceNext = 0;
+            sTraceSize = 0;
+        }
+    }
+
+    public static void clearTrace() {
+        synchronized (TRACE_LOCK) {
+            for (int i = 0; i < sTraceTags.length; i++) {
+                sTraceTags[i] = null;
+                sTraceMessages[i] = null;
+            }
+            sTraceNext = 0;
+            sTraceSize = 0;
+        }
+    }
+
+    /**
+     * @return recorded entries, oldest first, formatted as
+     * "nanoTime tag: message"
+     */
+    public static List<String> getTrace() {
+        synchronized (TRACE_LOCK) {
+            int capacity = sTraceTags.length;
+            List<String> result = new ArrayList<String>(sTraceSize);
+            int first = (sTraceNext - sTraceSize + capacity) % capacity;
+            for (int i = 0; i < sTraceSize; i++) {
+                int index = (first + i) % capacity;
+                result.add(sTraceTimes[index] + " " + sTraceTags[index]
+                        + ": " + sTraceMessages[index]);
+            }
+            return result;
+        }
+    }
+
+    private static void record(String tag, String msg) {
+        long now = System.nanoTime();
+        synchronized (TRACE_LOCK) {
+            sTraceTimes[sTraceNext] = now;
+            sTraceTags[sTraceNext] = tag;
+            sTraceMessages[sTraceNext] = msg;
+            sTraceNext = (sTraceNext + 1) % sTraceTags.length;
+            if (sTraceSize < sTraceTags.length) {
+                sTraceSize++;
+            }
+        }
+    }
+}
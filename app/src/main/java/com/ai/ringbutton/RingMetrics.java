@@ -0,0 +1,182 @@
+package com.ai.ringbutton;
+
+/**
+ * Opt-in cost counters for a single {@link RingButton}.
+ * <p>
+ * Records call counts and cumulative/max durations of onMeasure, onDraw and
+ * onTouchEvent, the number of invalidations requested by each setter and
+ * the number of ring geometry (text path / glyph layout) rebuilds.
+ * A view without metrics pays one null check per callback.
+ *
+ * @see RingButton#setMetricsEnabled(boolean)
+ */
+public final class RingMetrics {
+
+    public static final int CALLBACK_MEASURE = 0;
+    public static final int CALLBACK_DRAW = 1;
+    public static final int CALLBACK_TOUCH = 2;
+    static final int CALLBACK_COUNT = 3;
+
+    public static final int SETTER_TEXT = 0;
+    public static final int SETTER_TEXT_COLOR = 1;
+    public static final int SETTER_TEXT_SIZE = 2;
+    public static final int SETTER_ELEGANT_TEXT_HEIGHT = 3;
+    public static final int SETTER_LETTER_SPACING = 4;
+    public static final int SETTER_FONT_FEATURE_SETTINGS = 5;
+    public static final int SETTER_TYPEFACE = 6;
+    public static final int SETTER_SHADOW_LAYER = 7;
+    public static final int SETTER_PAINT_FLAGS = 8;
+    public static final int SETTER_EXTERNAL_DIAMETER = 9;
+    public static final int SETTER_INTERNAL_DIAMETER = 10;
+    public static final int SETTER_RING_BACKGROUND_COLOR = 11;
+    public static final int SETTER_TEXT_RENDER_MODE = 12;
+    public static final int SETTER_BITMAP_CACHE = 13;
+    public static final int SETTER_CLICK = 14;
+    public static final int SETTER_MARQUEE = 15;
+    /** Single invalidation issued at the end of RingButton.edit().apply(). */
+    public static final int SETTER_BATCH = 16;
+    public static final int SETTER_SEGMENTS = 17;
+    public static final int SETTER_PROGRESS = 18;
+    static final int SETTER_COUNT = 19;
+
+    /**
+     * Receives every timed callback as it completes. Called on the UI thread
+     * and must not allocate if used in production.
+     */
+    public interface Listener {
+        void onCallbackTimed(RingButton view, int callback, long durationNanos);
+    }
+
+    private final long[] mCallCounts = new long[CALLBACK_COUNT];
+    private final long[] mTotalNanos = new long[CALLBACK_COUNT];
+    private final long[] mMaxNanos = new long[CALLBACK_COUNT];
+    private final long[] mInvalidations = new long[SETTER_COUNT];
+    private long mGeometryRebuilds;
+
+    private volatile Listener mListener;
+
+    RingMetrics() { }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    synchronized void onCallback(RingButton view, int callback, long durationNanos) {
+        mCallCounts[callback]++;
+        mTotalNanos[callback] += durationNanos;
+        if (durationNanos > mMaxNanos[callback]) {
+            mMaxNanos[callback] = durationNanos;
+        }
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onCallbackTimed(view, callback, durationNanos);
+        }
+    }
+
+    synchronized void onInvalidate(int setter) {
+        mInvalidations[setter]++;
+    }
+
+    synchronized void onGeometryRebuilt() {
+        mGeometryRebuilds++;
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < CALLBACK_COUNT; i++) {
+            mCallCounts[i] = 0;
+            mTotalNanos[i] = 0;
+            mMaxNanos[i] = 0;
+        }
+        for (int i = 0; i < SETTER_COUNT; i++) {
+            mInvalidations[i] = 0;
+        }
+        mGeometryRebuilds = 0;
+    }
+
+    /**
+     * @return immutable copy of the current counters; safe to call from any
+     * thread
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(mCallCounts.clone(), mTotalNanos.clone(),
+                mMaxNanos.clone(), mInvalidations.clone(), mGeometryRebuilds);
+    }
+
+    /**
+     * Immutable copy of {@link RingMetrics} counters.
+     */
+    public static final class Snapshot {
+        private final long[] mCallCounts;
+        private final long[] mTotalNanos;
+        private final long[] mMaxNanos;
+        private final long[] mInvalidations;
+        private final long mGeometryRebuilds;
+
+        Snapshot(long[] callCounts, long[] totalNanos, long[] maxNanos,
+                 long[] invalidations, long geometryRebuilds) {
+            mCallCounts = callCounts;
+            mTotalNanos = totalNanos;
+            mMaxNanos = maxNanos;
+            mInvalidations = invalidations;
+            mGeometryRebuilds = geometryRebuilds;
+        }
+
+        /**
+         * @param callback one of the CALLBACK_* constants
+         */
+        public long getCallCount(int callback) {
+            return mCallCounts[callback];
+        }
+
+        /**
+         * @param callback one of the CALLBACK_* constants
+         */
+        public long getTotalNanos(int callback) {
+            return mTotalNanos[callback];
+        }
+
+        /**
+         * @param callback one of the CALLBACK_* constants
+         */
+        public long getMaxNanos(int callback) {
+            return mMaxNanos[callback];
+        }
+
+        /**
+         * @param setter one of the SETTER_* constants
+         */
+        public long getInvalidationCount(int setter) {
+            return mInvalidations[setter];
+        }
+
+        public long getTotalInvalidationCount() {
+            long total = 0;
+            for (long count : mInvalidations) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * @return number of times the text path or glyph layout was rebuilt
+         */
+        public long getGeometryRebuildCount() {
+            return mGeometryRebuilds;
+        }
+
+        @Override
+        public String toString() {
+            return "RingMetrics measure: " + mCallCounts[CALLBACK_MEASURE]
+                    + "/" + mTotalNanos[CALLBACK_MEASURE] + "ns"
+                    + " , draw: " + mCallCounts[CALLBACK_DRAW]
+                    + "/" + mTotalNanos[CALLBACK_DRAW] + "ns"
+                    + " , touch: " + mCallCounts[CALLBACK_TOUCH]
+                    + "/" + mTotalNanos[CALLBACK_TOUCH] + "ns"
+                    + " , invalidations: " + getTotalInvalidationCount()
+                    + " , geometry rebuilds: " + mGeometryRebuilds;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ai.ringbutton;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+import com.ai.ringbutton.render.RingPainter;
+import com.ai.ringbutton.render.RingSurface;
+
+/**
+ * One colored arc of a RingButton in donut chart mode, with an optional
+ * label drawn along the arc.
+ * <p>
+ * Angles are in degrees, clockwise from 12 o'clock. Segments are changed
+ * through the RingButton setters, which rebuild only the changed arc.
+ *
+ * @see RingButton#addSegment(float, float, int, String)
+ */
+public final class RingSegment {
+
+    private float mStartAngle;
+    private float mSweepAngle;
+    private int mColor;
+    private String mLabel;
+
+    // drawing state, rebuilt only when the segment or the ring changes
+    private final Path mPath = new Path();
+    private final RectF mOval = new RectF();
+    private float mLabelOffset;
+    private boolean mDirty = true;
+
+    // label glyph placement of the glyph text render mode
+    private char[] mLabelChars;
+    private float[] mLabelWidths;
+    private float[] mLabelAngles;
+    private boolean mLabelGlyphsDirty = true;
+
+    RingSegment(float startAngle, float sweepAngle, int color, String label) {
+        mStartAngle = startAngle;
+        mSweepAngle = sweepAngle;
+        mColor = color;
+        mLabel = label;
+    }
+
+    public float getStartAngle() {
+        return mStartAngle;
+    }
+
+    public float getSweepAngle() {
+        return mSweepAngle;
+    }
+
+    public int getColor() {
+        return mColor;
+    }
+
+    public String getLabel() {
+        return mLabel;
+    }
+
+    void setAngles(float startAngle, float sweepAngle) {
+        mStartAngle = startAngle;
+        mSweepAngle = sweepAngle;
+        mDirty = true;
+        mLabelGlyphsDirty = true;
+    }
+
+    void setColor(int color) {
+        mColor = color;
+    }
+
+    void setLabel(String label) {
+        mLabel = label;
+        mLabelGlyphsDirty = true;
+    }
+
+    /**
+     * Marks the arc and the label placement as stale after the ring size
+     * or the text paint changed.
+     */
+    void invalidate() {
+        mDirty = true;
+        mLabelGlyphsDirty = true;
+    }
+
+    /**
+     * @param angle degrees clockwise from 12 o'clock, in [0, 360)
+     * @return true if the angle lies within the arc
+     */
+    boolean containsAngle(float angle) {
+        return RingGeometry.isAngleInArc(angle, mStartAngle, mSweepAngle);
+    }
+
+    /**
+     * Draws the arc with the given stroke paint and its label along the
+     * centerline, rebuilding the arc path first if it is stale.
+     *
+     * @param glyphSurface surface of the glyph text render mode, which
+     *                     places the label glyph by glyph like the ring
+     *                     text; null to draw the label with drawTextOnPath
+     */
+    void draw(Canvas canvas, float cx, float cy, float radius, Paint arcPaint,
+              Paint textPaint, float textVOffset, RingSurface glyphSurface) {
+        if (mDirty) {
+            rebuild(cx, cy, radius);
+        }
+        arcPaint.setColor(mColor);
+        canvas.drawPath(mPath, arcPaint);
+        if (mLabel == null) {
+            return;
+        }
+        if (glyphSurface == null) {
+            canvas.drawTextOnPath(mLabel, mPath, mLabelOffset, textVOffset, textPaint);
+            return;
+        }
+        if (mLabelGlyphsDirty) {
+            layoutLabelGlyphs(textPaint, radius);
+        }
+        RingPainter.drawGlyphs(glyphSurface, cx, cy, radius, textVOffset, mLabelChars,
+                mLabelChars.length, mLabelAngles, textPaint.getColor());
+    }
+
+    /**
+     * Centers the label glyphs on the middle of the arc.
+     */
+    private void layoutLabelGlyphs(Paint textPaint, float radius) {
+        int n = mLabel.length();
+        if (mLabelChars == null || mLabelChars.length != n) {
+            mLabelChars = new char[n];
+            mLabelWidths = new float[n];
+            mLabelAngles = new float[n];
+        }
+        mLabel.getChars(0, n, mLabelChars, 0);
+        textPaint.getTextWidths(mLabelChars, 0, n, mLabelWidths);
+        RingGeometry.placeGlyphs(mLabelWidths, n, radius, mStartAngle + mSweepAngle / 2,
+                mLabelAngles);
+        mLabelGlyphsDirty = false;
+    }
+
+    private void rebuild(float cx, float cy, float radius) {
+        mOval.set(cx - radius, cy - radius, cx + radius, cy + radius);
+        mPath.rewind();
+        mPath.addArc(mOval, RingGeometry.toDrawingAngle(mStartAngle), mSweepAngle);
+        // the text paint is center-aligned, so this centers the label on the arc
+        mLabelOffset = (float) (Math.PI * radius * mSweepAngle / RingGeometry.FULL_CIRCLE);
+        mDirty = false;
+    }
+}
@@ -0,0 +1,242 @@
+package com.ai.ringbutton;
+
+import android.os.Parcel;
+
+/**
+ * Snapshot of the visual properties of a RingButton, used by its
+ * SavedState.
+ * <p>
+ * Only properties that differ from the ones the view was inflated with are
+ * parceled, selected by a bit-flag each; everything else is restored by
+ * inflation itself. The typeface can't be parceled and is not part of the
+ * state.
+ */
+final class RingState {
+
+    static final int TEXT = 1;
+    static final int TEXT_COLOR = 1 << 1;
+    static final int RING_COLOR = 1 << 2;
+    static final int TEXT_SIZE = 1 << 3;
+    static final int EXTERNAL_DIAMETER = 1 << 4;
+    static final int INTERNAL_DIAMETER = 1 << 5;
+    static final int SHADOW = 1 << 6;
+    static final int LETTER_SPACING = 1 << 7;
+    static final int ELEGANT_TEXT_HEIGHT = 1 << 8;
+    static final int FONT_FEATURE_SETTINGS = 1 << 9;
+    static final int TEXT_RENDER_MODE = 1 << 10;
+    static final int BITMAP_CACHE = 1 << 11;
+    static final int COLOR_ANIMATION_DURATION = 1 << 12;
+    static final int MARQUEE = 1 << 13;
+    static final int AUTO_FIT = 1 << 14;
+    static final int PROGRESS = 1 << 15;
+
+    String text;
+    int textColor;
+    int ringColor;
+    float textSize;
+    int externalDiameter;
+    int internalDiameter;
+    float shadowRadius;
+    float shadowDx;
+    float shadowDy;
+    int shadowColor;
+    float letterSpacing;
+    boolean elegantTextHeight;
+    String fontFeatureSettings;
+    int textRenderMode;
+    boolean bitmapCacheEnabled;
+    int colorAnimationDuration;
+    float marqueeSpeed;
+    int marqueeDirection;
+    boolean autoFitText;
+    float autoFitFraction;
+    float autoFitMinTextSize;
+    float autoFitMaxTextSize;
+    float progress;
+
+    /**
+     * @return flags of the properties that differ from {@code base}
+     */
+    int diff(RingState base) {
+        int flags = 0;
+        if (!equal(text, base.text)) {
+            flags |= TEXT;
+        }
+        if (textColor != base.textColor) {
+            flags |= TEXT_COLOR;
+        }
+        if (ringColor != base.ringColor) {
+            flags |= RING_COLOR;
+        }
+        if (textSize != base.textSize) {
+            flags |= TEXT_SIZE;
+        }
+        if (externalDiameter != base.externalDiameter) {
+            flags |= EXTERNAL_DIAMETER;
+        }
+        if (internalDiameter != base.internalDiameter) {
+            flags |= INTERNAL_DIAMETER;
+        }
+        if (shadowRadius != base.shadowRadius || shadowDx != base.shadowDx
+                || shadowDy != base.shadowDy || shadowColor != base.shadowColor) {
+            flags |= SHADOW;
+        }
+        if (letterSpacing != base.letterSpacing) {
+            flags |= LETTER_SPACING;
+        }
+        if (elegantTextHeight != base.elegantTextHeight) {
+            flags |= ELEGANT_TEXT_HEIGHT;
+        }
+        if (!equal(fontFeatureSettings, base.fontFeatureSettings)) {
+            flags |= FONT_FEATURE_SETTINGS;
+        }
+        if (textRenderMode != base.textRenderMode) {
+            flags |= TEXT_RENDER_MODE;
+        }
+        if (bitmapCacheEnabled != base.bitmapCacheEnabled) {
+            flags |= BITMAP_CACHE;
+        }
+        if (colorAnimationDuration != base.colorAnimationDuration) {
+            flags |= COLOR_ANIMATION_DURATION;
+        }
+        if (marqueeSpeed != base.marqueeSpeed || marqueeDirection != base.marqueeDirection) {
+            flags |= MARQUEE;
+        }
+        if (autoFitText != base.autoFitText || autoFitFraction != base.autoFitFraction
+                || autoFitMinTextSize != base.autoFitMinTextSize
+                || autoFitMaxTextSize != base.autoFitMaxTextSize) {
+            flags |= AUTO_FIT;
+        }
+        if (progress != base.progress) {
+            flags |= PROGRESS;
+        }
+        return flags;
+    }
+
+    /**
+     * Writes the properties selected by {@code flags}.
+     */
+    void writeToParcel(Parcel out, int flags) {
+        if ((flags & TEXT) != 0) {
+            out.writeString(text);
+        }
+        if ((flags & TEXT_COLOR) != 0) {
+            out.writeInt(textColor);
+        }
+        if ((flags & RING_COLOR) != 0) {
+            out.writeInt(ringColor);
+        }
+        if ((flags & TEXT_SIZE) != 0) {
+            out.writeFloat(textSize);
+        }
+        if ((flags & EXTERNAL_DIAMETER) != 0) {
+            out.writeInt(externalDiameter);
+        }
+        if ((flags & INTERNAL_DIAMETER) != 0) {
+            out.writeInt(internalDiameter);
+        }
+        if ((flags & SHADOW) != 0) {
+            out.writeFloat(shadowRadius);
+            out.writeFloat(shadowDx);
+            out.writeFloat(shadowDy);
+            out.writeInt(shadowColor);
+        }
+        if ((flags & LETTER_SPACING) != 0) {
+            out.writeFloat(letterSpacing);
+        }
+        if ((flags & ELEGANT_TEXT_HEIGHT) != 0) {
+            out.writeInt(elegantTextHeight ? 1 : 0);
+        }
+        if ((flags & FONT_FEATURE_SETTINGS) != 0) {
+            out.writeString(fontFeatureSettings);
+        }
+        if ((flags & TEXT_RENDER_MODE) != 0) {
+            out.writeInt(textRenderMode);
+        }
+        if ((flags & BITMAP_CACHE) != 0) {
+            out.writeInt(bitmapCacheEnabled ? 1 : 0);
+        }
+        if ((flags & COLOR_ANIMATION_DURATION) != 0) {
+            out.writeInt(colorAnimationDuration);
+        }
+        if ((flags & MARQUEE) != 0) {
+            out.writeFloat(marqueeSpeed);
+            out.writeInt(marqueeDirection);
+        }
+        if ((flags & AUTO_FIT) != 0) {
+            out.writeInt(autoFitText ? 1 : 0);
+            out.writeFloat(autoFitFraction);
+            out.writeFloat(autoFitMinTextSize);
+            out.writeFloat(autoFitMaxTextSize);
+        }
+        if ((flags & PROGRESS) != 0) {
+            out.writeFloat(progress);
+        }
+    }
+
+    /**
+     * Reads the properties selected by {@code flags}, written by
+     * {@link #writeToParcel(Parcel, int)}.
+     */
+    void readFromParcel(Parcel in, int flags) {
+        if ((flags & TEXT) != 0) {
+            text = in.readString();
+        }
+        if ((flags & TEXT_COLOR) != 0) {
+            textColor = in.readInt();
+        }
+        if ((flags & RING_COLOR) != 0) {
+            ringColor = in.readInt();
+        }
+        if ((flags & TEXT_SIZE) != 0) {
+            textSize = in.readFloat();
+        }
+        if ((flags & EXTERNAL_DIAMETER) != 0) {
+            externalDiameter = in.readInt();
+        }
+        if ((flags & INTERNAL_DIAMETER) != 0) {
+            internalDiameter = in.readInt();
+        }
+        if ((flags & SHADOW) != 0) {
+            shadowRadius = in.readFloat();
+            shadowDx = in.readFloat();
+            shadowDy = in.readFloat();
+            shadowColor = in.readInt();
+        }
+        if ((flags & LETTER_SPACING) != 0) {
+            letterSpacing = in.readFloat();
+        }
+        if ((flags & ELEGANT_TEXT_HEIGHT) != 0) {
+            elegantTextHeight = in.readInt() != 0;
+        }
+        if ((flags & FONT_FEATURE_SETTINGS) != 0) {
+            fontFeatureSettings = in.readString();
+        }
+        if ((flags & TEXT_RENDER_MODE) != 0) {
+            textRenderMode = in.readInt();
+        }
+        if ((flags & BITMAP_CACHE) != 0) {
+            bitmapCacheEnabled = in.readInt() != 0;
+        }
+        if ((flags & COLOR_ANIMATION_DURATION) != 0) {
+            colorAnimationDuration = in.readInt();
+        }
+        if ((flags & MARQUEE) != 0) {
+            marqueeSpeed = in.readFloat();
+            marqueeDirection = in.readInt();
+        }
+        if ((flags & AUTO_FIT) != 0) {
+            autoFitText = in.readInt() != 0;
+            autoFitFraction = in.readFloat();
+            autoFitMinTextSize = in.readFloat();
+            autoFitMaxTextSize = in.readFloat();
+        }
+        if ((flags & PROGRESS) != 0) {
+            progress = in.readFloat();
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
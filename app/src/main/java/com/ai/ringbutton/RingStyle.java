@@ -0,0 +1,487 @@
+package com.ai.ringbutton;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable set of RingButton attributes resolved from a theme, default
+ * style and text appearance.
+ * <p>
+ * Resolving a style walks two styled attribute arrays and the text
+ * appearance, which dominates inflation of many rings. The part that
+ * depends only on (theme, defStyleAttr, defStyleRes, textAppearance) is
+ * cached process-wide; per instance only the attributes present in the
+ * layout XML are parsed on top of it.
+ * <p>
+ * Themes are held weakly. A theme modified with
+ * {@link Resources.Theme#applyStyle} after rings were inflated from it
+ * should be followed by {@link #clearCache()}.
+ */
+final class RingStyle {
+
+    private static final int NO_RESOURCE = -1;
+    // bit i stands for R.styleable.RingButton[i]
+    private static final long ALL_ATTRIBUTES = -1L;
+
+    private static final Map<Resources.Theme, Map<Key, RingStyle>> CACHE =
+            new WeakHashMap<Resources.Theme, Map<Key, RingStyle>>();
+
+    final int externalDiameter;
+    final int internalDiameter;
+    final int ringColor;
+    final int textRenderMode;
+    final boolean bitmapCacheEnabled;
+    final int colorAnimationDuration;
+    final float marqueeSpeed;
+    final int marqueeDirection;
+    final boolean autoFitText;
+    final float autoFitFraction;
+    final int autoFitMinTextSize;
+    final int autoFitMaxTextSize;
+    final String text;
+    final ColorStateList textColor;
+    final int textSize;
+    final String fontFamily;
+    final int typefaceIndex;
+    final int styleIndex;
+    final int shadowColor;
+    final float shadowDx;
+    final float shadowDy;
+    final float shadowRadius;
+    final boolean elegantTextHeight;
+    final float letterSpacing;
+    final String fontFeatureSettings;
+
+    private RingStyle(Builder b) {
+        externalDiameter = b.externalDiameter;
+        internalDiameter = b.internalDiameter;
+        ringColor = b.ringColor;
+        textRenderMode = b.textRenderMode;
+        bitmapCacheEnabled = b.bitmapCacheEnabled;
+        colorAnimationDuration = b.colorAnimationDuration;
+        marqueeSpeed = b.marqueeSpeed;
+        marqueeDirection = b.marqueeDirection;
+        autoFitText = b.autoFitText;
+        autoFitFraction = b.autoFitFraction;
+        autoFitMinTextSize = b.autoFitMinTextSize;
+        autoFitMaxTextSize = b.autoFitMaxTextSize;
+        text = b.text;
+        textColor = b.textColor;
+        textSize = b.textSize;
+        fontFamily = b.fontFamily;
+        typefaceIndex = b.typefaceIndex;
+        styleIndex = b.styleIndex;
+        shadowColor = b.shadowColor;
+        shadowDx = b.shadowDx;
+        shadowDy = b.shadowDy;
+        shadowRadius = b.shadowRadius;
+        elegantTextHeight = b.elegantTextHeight;
+        letterSpacing = b.letterSpacing;
+        fontFeatureSettings = b.fontFeatureSettings;
+    }
+
+    /**
+     * Resolves the style of a RingButton, reusing the cached theme part
+     * whenever the layout XML does not carry its own style attribute.
+     */
+    static RingStyle obtain(Context context, AttributeSet attrs,
+                            int defStyleAttr, int defStyleRes) {
+        Resources.Theme theme = context.getTheme();
+        int xmlAppearance = attrs != null ? findTextAppearance(attrs) : NO_RESOURCE;
+        if (attrs != null
+                && (attrs.getStyleAttribute() != 0 || xmlAppearance == 0)) {
+            // style="..." or a theme reference: resolve everything uncached
+            return resolve(theme, attrs, defStyleAttr, defStyleRes, NO_RESOURCE);
+        }
+
+        Key key = new Key(defStyleAttr, defStyleRes, xmlAppearance);
+        RingStyle base;
+        synchronized (CACHE) {
+            Map<Key, RingStyle> styles = CACHE.get(theme);
+            if (styles == null) {
+                styles = new HashMap<Key, RingStyle>();
+                CACHE.put(theme, styles);
+            }
+            base = styles.get(key);
+            if (base == null) {
+                base = resolve(theme, null, defStyleAttr, defStyleRes, xmlAppearance);
+                styles.put(key, base);
+            }
+        }
+        if (attrs == null) {
+            return base;
+        }
+
+        // only what the XML sets for this instance: the styled attributes
+        // also carry theme values, which must not override the cached
+        // default style
+        long present = findXmlAttributes(attrs);
+        if (present == 0) {
+            return base;
+        }
+        Builder builder = new Builder(base);
+        TypedArray a = theme.obtainStyledAttributes(attrs, R.styleable.RingButton, 0, 0);
+        builder.readRingButton(a, present);
+        a.recycle();
+        return builder.build();
+    }
+
+    static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /*
+     * PARTLY COPIED FROM TextView SOURCE
+     * Look the appearance up without checking first if it exists because
+     * it greatly simplifies the logic to be able to parse the appearance
+     * first and then let specific tags for this View override it.
+     */
+    private static RingStyle resolve(Resources.Theme theme, AttributeSet attrs,
+                                     int defStyleAttr, int defStyleRes,
+                                     int appearanceOverride) {
+        Builder builder = new Builder();
+        int ap = appearanceOverride;
+        if (ap == NO_RESOURCE) {
+            TypedArray a = theme.obtainStyledAttributes(attrs,
+                    R.styleable.RingButtonAppearance, defStyleAttr, 0);
+            ap = a.getResourceId(
+                    R.styleable.RingButtonAppearance_android_textAppearance, NO_RESOURCE);
+            a.recycle();
+        }
+        if (ap != NO_RESOURCE) {
+            TypedArray appearance = theme.obtainStyledAttributes(ap, R.styleable.TextAppearance);
+            builder.readAppearance(appearance);
+            appearance.recycle();
+        }
+
+        /*
+         * PARTLY COPIED FROM TextView SOURCE
+         * Appearance parsed, now let specific tags for this View override it.
+         */
+        TypedArray a = theme.obtainStyledAttributes(
+                attrs, R.styleable.RingButton, defStyleAttr, defStyleRes);
+        builder.readRingButton(a, ALL_ATTRIBUTES);
+        a.recycle();
+        return builder.build();
+    }
+
+    /**
+     * @return resource id of android:textAppearance set directly in the XML,
+     * NO_RESOURCE if it is absent or 0 if it is a theme reference
+     */
+    private static int findTextAppearance(AttributeSet attrs) {
+        int n = attrs.getAttributeCount();
+        for (int i = 0; i < n; i++) {
+            if (attrs.getAttributeNameResource(i) == android.R.attr.textAppearance) {
+                String value = attrs.getAttributeValue(i);
+                if (value != null && value.startsWith("?")) {
+                    return 0;
+                }
+                return attrs.getAttributeResourceValue(i, NO_RESOURCE);
+            }
+        }
+        return NO_RESOURCE;
+    }
+
+    /**
+     * @return mask with bit i set if the attribute R.styleable.RingButton[i]
+     * is set directly in the XML
+     */
+    private static long findXmlAttributes(AttributeSet attrs) {
+        int[] styleable = R.styleable.RingButton;
+        long mask = 0;
+        for (int i = 0, n = attrs.getAttributeCount(); i < n; i++) {
+            int id = attrs.getAttributeNameResource(i);
+            for (int j = 0; j < styleable.length; j++) {
+                if (styleable[j] == id) {
+                    mask |= 1L << j;
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static final class Key {
+        private final int mDefStyleAttr;
+        private final int mDefStyleRes;
+        private final int mTextAppearance;
+
+        Key(int defStyleAttr, int defStyleRes, int textAppearance) {
+            mDefStyleAttr = defStyleAttr;
+            mDefStyleRes = defStyleRes;
+            mTextAppearance = textAppearance;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return mDefStyleAttr == k.mDefStyleAttr
+                    && mDefStyleRes == k.mDefStyleRes
+                    && mTextAppearance == k.mTextAppearance;
+        }
+
+        @Override
+        public int hashCode() {
+            return (mDefStyleAttr * 31 + mDefStyleRes) * 31 + mTextAppearance;
+        }
+    }
+
+    /**
+     * Mutable counterpart used while parsing.
+     */
+    private static final class Builder {
+        int externalDiameter = RingButton.DEFAULT_VIEW_SIZE;
+        int internalDiameter = -1;
+        int ringColor = RingButton.DEFAULT_RING_COLOR;
+        int textRenderMode = RingButton.TEXT_RENDER_MODE_PATH;
+        boolean bitmapCacheEnabled;
+        int colorAnimationDuration;
+        float marqueeSpeed;
+        int marqueeDirection = RingButton.MARQUEE_DIRECTION_CLOCKWISE;
+        boolean autoFitText;
+        float autoFitFraction = RingButton.DEFAULT_AUTO_FIT_FRACTION;
+        int autoFitMinTextSize;
+        int autoFitMaxTextSize;
+        String text = "attribute android.text is not set";
+        ColorStateList textColor;
+        // -1 until set, the 15sp default depends on the display
+        int textSize = -1;
+        String fontFamily;
+        int typefaceIndex = -1;
+        int styleIndex = -1;
+        int shadowColor;
+        float shadowDx, shadowDy, shadowRadius;
+        boolean elegantTextHeight;
+        float letterSpacing;
+        String fontFeatureSettings;
+
+        Builder() { }
+
+        Builder(RingStyle s) {
+            externalDiameter = s.externalDiameter;
+            internalDiameter = s.internalDiameter;
+            ringColor = s.ringColor;
+            textRenderMode = s.textRenderMode;
+            bitmapCacheEnabled = s.bitmapCacheEnabled;
+            colorAnimationDuration = s.colorAnimationDuration;
+            marqueeSpeed = s.marqueeSpeed;
+            marqueeDirection = s.marqueeDirection;
+            autoFitText = s.autoFitText;
+            autoFitFraction = s.autoFitFraction;
+            autoFitMinTextSize = s.autoFitMinTextSize;
+            autoFitMaxTextSize = s.autoFitMaxTextSize;
+            text = s.text;
+            textColor = s.textColor;
+            textSize = s.textSize;
+            fontFamily = s.fontFamily;
+            typefaceIndex = s.typefaceIndex;
+            styleIndex = s.styleIndex;
+            shadowColor = s.shadowColor;
+            shadowDx = s.shadowDx;
+            shadowDy = s.shadowDy;
+            shadowRadius = s.shadowRadius;
+            elegantTextHeight = s.elegantTextHeight;
+            letterSpacing = s.letterSpacing;
+            fontFeatureSettings = s.fontFeatureSettings;
+        }
+
+        RingStyle build() {
+            return new RingStyle(this);
+        }
+
+        void readAppearance(TypedArray appearance) {
+            int n = appearance.getIndexCount();
+            for (int i = 0; i < n; i++) {
+                int attr = appearance.getIndex(i);
+                switch (attr) {
+                    case R.styleable.TextAppearance_android_elegantTextHeight:
+                        elegantTextHeight = appearance.getBoolean(attr, false);
+                        break;
+
+                    case R.styleable.TextAppearance_android_fontFamily:
+                        fontFamily = appearance.getString(attr);
+                        break;
+
+                    case R.styleable.TextAppearance_android_fontFeatureSettings:
+                        fontFeatureSettings = appearance.getString(attr);
+                        break;
+
+                    case R.styleable.TextAppearance_android_letterSpacing:
+                        letterSpacing = appearance.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.TextAppearance_android_shadowColor:
+                        shadowColor = appearance.getInt(attr, 0);
+                        break;
+
+                    case R.styleable.TextAppearance_android_shadowDx:
+                        shadowDx = appearance.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.TextAppearance_android_shadowDy:
+                        shadowDy = appearance.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.TextAppearance_android_shadowRadius:
+                        shadowRadius = appearance.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.TextAppearance_android_textColor:
+                        textColor = appearance.getColorStateList(attr);
+                        break;
+
+                    case R.styleable.TextAppearance_android_textSize:
+                        textSize = appearance.getDimensionPixelSize(attr, textSize);
+                        break;
+
+                    case R.styleable.TextAppearance_android_textStyle:
+                        styleIndex = appearance.getInt(attr, -1);
+                        break;
+
+                    case R.styleable.TextAppearance_android_typeface:
+                        typefaceIndex = appearance.getInt(attr, -1);
+                        break;
+                    default:
+                        break;
+                    /*
+                    Not implemented attributes:
+                    android:allCaps
+                    android:textColorHighlight
+                    android:textColorHint
+                    android:textColorLink
+                    */
+                }
+            }
+        }
+
+        /**
+         * @param present mask of the R.styleable.RingButton indices to read,
+         *                the others keep their current value
+         */
+        void readRingButton(TypedArray a, long present) {
+            int n = a.getIndexCount();
+            for (int i = 0; i < n; i++) {
+                int attr = a.getIndex(i);
+                if ((present & (1L << attr)) == 0) {
+                    continue;
+                }
+                switch (attr) {
+                    case R.styleable.RingButton_externalDiameter:
+                        externalDiameter = a.getDimensionPixelSize(attr, externalDiameter);
+                        break;
+
+                    case R.styleable.RingButton_internalDiameter:
+                        internalDiameter = a.getDimensionPixelSize(attr, internalDiameter);
+                        break;
+
+                    case R.styleable.RingButton_ringBackgroundColor:
+                        ringColor = a.getColor(attr, ringColor);
+                        break;
+
+                    case R.styleable.RingButton_textRenderMode:
+                        textRenderMode = a.getInt(attr, textRenderMode);
+                        break;
+
+                    case R.styleable.RingButton_bitmapCacheEnabled:
+                        bitmapCacheEnabled = a.getBoolean(attr, bitmapCacheEnabled);
+                        break;
+
+                    case R.styleable.RingButton_colorAnimationDuration:
+                        colorAnimationDuration = a.getInt(attr, colorAnimationDuration);
+                        break;
+
+                    case R.styleable.RingButton_marqueeSpeed:
+                        marqueeSpeed = a.getFloat(attr, marqueeSpeed);
+                        break;
+
+                    case R.styleable.RingButton_marqueeDirection:
+                        marqueeDirection = a.getInt(attr, marqueeDirection);
+                        break;
+
+                    case R.styleable.RingButton_autoFitText:
+                        autoFitText = a.getBoolean(attr, autoFitText);
+                        break;
+
+                    case R.styleable.RingButton_autoFitFraction:
+                        autoFitFraction = a.getFloat(attr, autoFitFraction);
+                        break;
+
+                    case R.styleable.RingButton_autoFitMinTextSize:
+                        autoFitMinTextSize = a.getDimensionPixelSize(attr, autoFitMinTextSize);
+                        break;
+
+                    case R.styleable.RingButton_autoFitMaxTextSize:
+                        autoFitMaxTextSize = a.getDimensionPixelSize(attr, autoFitMaxTextSize);
+                        break;
+
+                    case R.styleable.RingButton_android_text:
+                        text = a.getString(attr);
+                        break;
+
+                    case R.styleable.RingButton_android_textColor:
+                        textColor = a.getColorStateList(attr);
+                        break;
+
+                    case R.styleable.RingButton_android_textSize:
+                        textSize = a.getDimensionPixelSize(attr, textSize);
+                        break;
+
+                    case R.styleable.RingButton_android_fontFamily:
+                        fontFamily = a.getString(attr);
+                        break;
+
+                    case R.styleable.RingButton_android_typeface:
+                        typefaceIndex = a.getInt(attr, typefaceIndex);
+                        break;
+
+                    case R.styleable.RingButton_android_textStyle:
+                        styleIndex = a.getInt(attr, styleIndex);
+                        break;
+
+                    case R.styleable.RingButton_android_shadowColor:
+                        shadowColor = a.getInt(attr, 0);
+                        break;
+
+                    case R.styleable.RingButton_android_shadowDx:
+                        shadowDx = a.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.RingButton_android_shadowDy:
+                        shadowDy = a.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.RingButton_android_shadowRadius:
+                        shadowRadius = a.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.RingButton_android_elegantTextHeight:
+                        elegantTextHeight = a.getBoolean(attr, false);
+                        break;
+
+                    case R.styleable.RingButton_android_letterSpacing:
+                        letterSpacing = a.getFloat(attr, 0);
+                        break;
+
+                    case R.styleable.RingButton_android_fontFeatureSettings:
+                        fontFeatureSettings = a.getString(attr);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ai.ringbutton;
+
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.v4.util.LruCache;
+import android.text.TextPaint;
+
+/**
+ * Finds the text size at which a text fills a given length along the ring
+ * centerline. Results are shared by all RingButtons, so recycled views in a
+ * list do not repeat the search.
+ * <p>
+ * Must be used from the main thread.
+ */
+final class RingTextFitter {
+
+    private static final int CACHE_SIZE = 256;
+    private static final int MAX_ITERATIONS = 16;
+    private static final float PRECISION = 0.5f;
+
+    private static final LruCache<Key, Float> CACHE = new LruCache<Key, Float>(CACHE_SIZE);
+
+    // reused for lookups so a cache hit allocates nothing
+    private static final Key LOOKUP = new Key();
+
+    private RingTextFitter() { }
+
+    /**
+     * Binary-searches the largest text size in [minSize, maxSize] at which
+     * the text is not longer than {@code availableLength}. The paint's text
+     * size is modified during the search and left undefined.
+     *
+     * @return the fitted text size in pixels
+     */
+    static float fit(TextPaint paint, String text, float availableLength,
+                     float minSize, float maxSize) {
+        if (maxSize <= minSize || text.length() == 0) {
+            return Math.max(minSize, maxSize);
+        }
+        int length = Math.round(availableLength);
+        LOOKUP.set(text, length, minSize, maxSize);
+        setPaintStyle(LOOKUP, paint);
+        Float cached = CACHE.get(LOOKUP);
+        if (cached != null) {
+            return cached;
+        }
+
+        float lo = minSize;
+        float hi = maxSize;
+        for (int i = 0; i < MAX_ITERATIONS && hi - lo > PRECISION; i++) {
+            float mid = (lo + hi) / 2;
+            paint.setTextSize(mid);
+            if (paint.measureText(text) <= availableLength) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        CACHE.put(LOOKUP.copy(), lo);
+        return lo;
+    }
+
+    static void clearCache() {
+        CACHE.evictAll();
+    }
+
+    /**
+     * Copies everything besides the text size that affects the measured
+     * text width into the key.
+     */
+    private static void setPaintStyle(Key key, TextPaint paint) {
+        float letterSpacing = 0;
+        String fontFeatureSettings = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            letterSpacing = paint.getLetterSpacing();
+            fontFeatureSettings = paint.getFontFeatureSettings();
+        }
+        key.setPaintStyle(paint.getTypeface(), paint.getFlags(), paint.getTextScaleX(),
+                paint.getTextSkewX(), letterSpacing, fontFeatureSettings);
+    }
+
+    static final class Key {
+        private String mText;
+        private int mLength;
+        private float mMinSize;
+        private float mMaxSize;
+        private Typeface mTypeface;
+        // fake bold, subpixel, linear text etc. change advances
+        private int mFlags;
+        private float mTextScaleX;
+        private float mTextSkewX;
+        private float mLetterSpacing;
+        private String mFontFeatureSettings;
+
+        void set(String text, int length, float minSize, float maxSize) {
+            mText = text;
+            mLength = length;
+            mMinSize = minSize;
+            mMaxSize = maxSize;
+        }
+
+        void setPaintStyle(Typeface typeface, int flags, float textScaleX, float textSkewX,
+                           float letterSpacing, String fontFeatureSettings) {
+            mTypeface = typeface;
+            mFlags = flags;
+            mTextScaleX = textScaleX;
+            mTextSkewX = textSkewX;
+            mLetterSpacing = letterSpacing;
+            mFontFeatureSettings = fontFeatureSettings;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(mText, mLength, mMinSize, mMaxSize);
+            key.setPaintStyle(mTypeface, mFlags, mTextScaleX, mTextSkewX, mLetterSpacing,
+                    mFontFeatureSettings);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return mLength == k.mLength
+                    && mMinSize == k.mMinSize
+                    && mMaxSize == k.mMaxSize
+                    && mTypeface == k.mTypeface
+                    && mFlags == k.mFlags
+                    && mTextScaleX == k.mTextScaleX
+                    && mTextSkewX == k.mTextSkewX
+                    && mLetterSpacing == k.mLetterSpacing
+                    && (mFontFeatureSettings == null
+                    ? k.mFontFeatureSettings == null
+                    : mFontFeatureSettings.equals(k.mFontFeatureSettings))
+                    && mText.equals(k.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+            result = 31 * result + mLength;
+            result = 31 * result + Float.floatToIntBits(mMinSize);
+            result = 31 * result + Float.floatToIntBits(mMaxSize);
+            result = 31 * result + mFlags;
+            result = 31 * result + Float.floatToIntBits(mTextScaleX);
+            result = 31 * result + Float.floatToIntBits(mTextSkewX);
+            result = 31 * result + Float.floatToIntBits(mLetterSpacing);
+            result = 31 * result
+                    + (mFontFeatureSettings != null ? mFontFeatureSettings.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ai.ringbutton;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.TextPaint;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+import com.ai.ringbutton.render.RingPainter;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Immutable placement of a text along a ring: the rotation of every glyph
+ * and the vertical offset that centers the text on the ring centerline.
+ * <p>
+ * It can be computed on a worker thread with
+ * {@link #precompute(Executor, String, TextPaint, float)} and handed to
+ * {@link RingButton#setPrecomputedText(RingTextLayout)}, so that the view
+ * does no text measuring on the UI thread. The layout is used only while
+ * the ring radius and the text paint match the ones it was computed for;
+ * otherwise RingButton falls back to its inline layout.
+ */
+public final class RingTextLayout {
+
+    private final String mText;
+    private final char[] mChars;
+    private final float[] mGlyphAngles;
+    private final float mVOffset;
+    private final float mRadius;
+
+    // paint state the layout depends on
+    private final float mTextSize;
+    private final Typeface mTypeface;
+    private final float mTextScaleX;
+    private final float mTextSkewX;
+    private final int mFlags;
+    private final float mLetterSpacing;
+    private final String mFontFeatureSettings;
+
+    private RingTextLayout(String text, Paint paint, float radius) {
+        mText = text;
+        mChars = text.toCharArray();
+        mGlyphAngles = new float[mChars.length];
+        computeGlyphAngles(paint, mChars, radius, new float[mChars.length], mGlyphAngles);
+        mVOffset = computeVOffset(paint);
+        mRadius = radius;
+        mTextSize = paint.getTextSize();
+        mTypeface = paint.getTypeface();
+        mTextScaleX = paint.getTextScaleX();
+        mTextSkewX = paint.getTextSkewX();
+        mFlags = paint.getFlags();
+        mLetterSpacing = getLetterSpacing(paint);
+        mFontFeatureSettings = getFontFeatureSettings(paint);
+    }
+
+    /**
+     * Lays the text out on the calling thread.
+     *
+     * @param radius radius of the ring centerline, see
+     *               {@link RingButton#getTextRadius()}
+     */
+    public static RingTextLayout create(String text, TextPaint paint, float radius) {
+        return new RingTextLayout(text, paint, radius);
+    }
+
+    /**
+     * Lays the text out on the executor. The paint is copied on the calling
+     * thread, so it may be changed as soon as this method returns.
+     *
+     * @param radius radius of the ring centerline, see
+     *               {@link RingButton#getTextRadius()}
+     */
+    public static Future<RingTextLayout> precompute(Executor executor, final String text,
+                                                    TextPaint paint, final float radius) {
+        final TextPaint copy = new TextPaint(paint);
+        FutureTask<RingTextLayout> task = new FutureTask<RingTextLayout>(
+                new Callable<RingTextLayout>() {
+                    @Override
+                    public RingTextLayout call() {
+                        return new RingTextLayout(text, copy, radius);
+                    }
+                });
+        executor.execute(task);
+        return task;
+    }
+
+    public String getText() {
+        return mText;
+    }
+
+    public float getRadius() {
+        return mRadius;
+    }
+
+    /**
+     * @return baseline offset from the centerline that centers the text
+     * vertically on it
+     */
+    public float getVOffset() {
+        return mVOffset;
+    }
+
+    /**
+     * @return rotation of the glyph at the given char index in degrees,
+     * clockwise from 12 o'clock
+     */
+    public float getGlyphAngle(int index) {
+        return mGlyphAngles[index];
+    }
+
+    /**
+     * @return true if the layout is valid for a ring with the given
+     * centerline radius drawn with the given paint
+     */
+    boolean matches(float radius, Paint paint) {
+        return radius == mRadius
+                && paint.getTextSize() == mTextSize
+                && paint.getTypeface() == mTypeface
+                && paint.getTextScaleX() == mTextScaleX
+                && paint.getTextSkewX() == mTextSkewX
+                && paint.getFlags() == mFlags
+                && getLetterSpacing(paint) == mLetterSpacing
+                && equals(getFontFeatureSettings(paint), mFontFeatureSettings);
+    }
+
+    char[] getChars() {
+        return mChars;
+    }
+
+    float[] getGlyphAngles() {
+        return mGlyphAngles;
+    }
+
+    /**
+     * @return baseline offset which centers the text on a line
+     */
+    static float computeVOffset(Paint paint) {
+        return RingPainter.computeVOffset(paint.ascent(), paint.descent());
+    }
+
+    /**
+     * Computes the rotation (in degrees, clockwise from 12 o'clock) of every
+     * glyph so that the text is centered at the top of the ring, the same
+     * placement drawTextOnPath produces.
+     *
+     * @param widths scratch array of at least chars.length
+     * @param angles receives the angles, at least chars.length long
+     */
+    static void computeGlyphAngles(Paint paint, char[] chars, float radius,
+                                   float[] widths, float[] angles) {
+        paint.getTextWidths(chars, 0, chars.length, widths);
+        RingGeometry.placeGlyphs(widths, chars.length, radius, angles);
+    }
+
+    private static float getLetterSpacing(Paint paint) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return paint.getLetterSpacing();
+        }
+        return 0;
+    }
+
+    private static String getFontFeatureSettings(Paint paint) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return paint.getFontFeatureSettings();
+        }
+        return null;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
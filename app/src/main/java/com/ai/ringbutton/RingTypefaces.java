@@ -0,0 +1,243 @@
+package com.ai.ringbutton;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Process-wide, thread-safe registry of typefaces used by RingButtons.
+ * <p>
+ * Asset fonts from {@code assets/fonts/} and (family, style) or
+ * (typeface, style) variants are created once and then shared, so
+ * inflating many rings creates no fonts. Lookups of cached typefaces do
+ * not allocate. The caches are bounded LRU caches, so typefaces passed in
+ * by the app are not kept alive for the life of the process.
+ * {@link #warmUp(Context)} creates the default fonts on a
+ * background thread at app start.
+ */
+public final class RingTypefaces {
+
+    private static final String TAG = "RingButton";
+
+    static final String ROBOTO_PATH = "fonts/Roboto-Regular.ttf";
+    static final String DEFAULT_FAMILY = "sans-serif";
+
+    // Typeface.NORMAL, BOLD, ITALIC, BOLD_ITALIC
+    private static final int STYLE_COUNT = 4;
+
+    // Enum for the "typeface" XML parameter.
+    private static final int SANS = 1;
+    private static final int SERIF = 2;
+    private static final int MONOSPACE = 3;
+
+    private static final int MAX_ASSETS = 8;
+    private static final int MAX_FAMILIES = 16;
+    private static final int MAX_DERIVED = 16;
+
+    private static final LruCache<String, Typeface> ASSETS =
+            new LruCache<String, Typeface>(MAX_ASSETS);
+    // the style arrays are filled lazily from several threads
+    private static final LruCache<String, AtomicReferenceArray<Typeface>> FAMILIES =
+            new StyleCache<String>(MAX_FAMILIES);
+    private static final LruCache<Typeface, AtomicReferenceArray<Typeface>> DERIVED =
+            new StyleCache<Typeface>(MAX_DERIVED);
+
+    /**
+     * Creates the empty style array of a family on a miss. Racing threads
+     * get the same array, LruCache keeps the first one put.
+     */
+    private static final class StyleCache<K> extends LruCache<K, AtomicReferenceArray<Typeface>> {
+
+        StyleCache(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        protected AtomicReferenceArray<Typeface> create(K key) {
+            return new AtomicReferenceArray<Typeface>(STYLE_COUNT);
+        }
+    }
+
+    private RingTypefaces() { }
+
+    /**
+     * @param path path inside the assets, e.g. "fonts/Roboto-Regular.ttf"
+     * @return the typeface or null if the asset can't be loaded
+     */
+    public static Typeface getAsset(Context context, String path) {
+        Typeface tf = ASSETS.get(path);
+        if (tf == null) {
+            try {
+                tf = Typeface.createFromAsset(context.getAssets(), path);
+            } catch (RuntimeException e) {
+                // thrown as "native typeface cannot be made" for a missing
+                // or broken font file
+                Log.e(TAG, "File: " + path + " not found");
+                return null;
+            }
+            // LruCache locks itself, so this makes the check and the put atomic
+            synchronized (ASSETS) {
+                Typeface existing = ASSETS.get(path);
+                if (existing != null) {
+                    return existing;
+                }
+                ASSETS.put(path, tf);
+            }
+        }
+        return tf;
+    }
+
+    /**
+     * Cached equivalent of {@link Typeface#create(String, int)}.
+     */
+    public static Typeface create(String familyName, int style) {
+        if (familyName == null) {
+            return create((Typeface) null, style);
+        }
+        style = normalizeStyle(style);
+        if (style >= STYLE_COUNT) {
+            return Typeface.create(familyName, style);
+        }
+        AtomicReferenceArray<Typeface> styles = FAMILIES.get(familyName);
+        Typeface tf = styles.get(style);
+        if (tf == null) {
+            // racing threads may both create it, the first one is kept
+            tf = Typeface.create(familyName, style);
+            if (!styles.compareAndSet(style, null, tf)) {
+                tf = styles.get(style);
+            }
+        }
+        return tf;
+    }
+
+    /**
+     * Cached equivalent of {@link Typeface#create(Typeface, int)}.
+     */
+    public static Typeface create(Typeface family, int style) {
+        style = normalizeStyle(style);
+        if (family == null) {
+            return Typeface.defaultFromStyle(style);
+        }
+        if (style >= STYLE_COUNT) {
+            return Typeface.create(family, style);
+        }
+        AtomicReferenceArray<Typeface> styles = DERIVED.get(family);
+        Typeface tf = styles.get(style);
+        if (tf == null) {
+            tf = Typeface.create(family, style);
+            if (!styles.compareAndSet(style, null, tf)) {
+                tf = styles.get(style);
+            }
+        }
+        return tf;
+    }
+
+    /**
+     * Finds the font family of a typeface from this registry or of one of
+     * the platform's default typefaces, e.g. for
+     * {@link com.ai.ringbutton.render.RingSpec}.
+     *
+     * @return family name, {@value #DEFAULT_FAMILY} if it is not known,
+     * e.g. because it was evicted from the caches
+     */
+    static String getFamilyName(Typeface tf) {
+        String family = findFamilyName(tf);
+        if (family != null) {
+            return family;
+        }
+        Map<Typeface, AtomicReferenceArray<Typeface>> derived = DERIVED.snapshot();
+        for (Map.Entry<Typeface, AtomicReferenceArray<Typeface>> entry : derived.entrySet()) {
+            if (contains(entry.getValue(), tf)) {
+                family = findFamilyName(entry.getKey());
+                if (family != null) {
+                    return family;
+                }
+            }
+        }
+        // the default, sans-serif and the bundled Roboto
+        return DEFAULT_FAMILY;
+    }
+
+    /**
+     * @return family of a platform default or a (family, style) typeface, or null
+     */
+    private static String findFamilyName(Typeface tf) {
+        if (tf == null) {
+            return null;
+        } else if (tf == Typeface.SERIF) {
+            return "serif";
+        } else if (tf == Typeface.MONOSPACE) {
+            return "monospace";
+        }
+        Map<String, AtomicReferenceArray<Typeface>> families = FAMILIES.snapshot();
+        for (Map.Entry<String, AtomicReferenceArray<Typeface>> entry : families.entrySet()) {
+            if (contains(entry.getValue(), tf)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(AtomicReferenceArray<Typeface> styles, Typeface tf) {
+        for (int style = 0; style < STYLE_COUNT; style++) {
+            if (styles.get(style) == tf) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param typefaceIndex value of the android:typeface XML attribute
+     * @return the typeface, or null for the default one
+     */
+    static Typeface forTypefaceIndex(int typefaceIndex) {
+        switch (typefaceIndex) {
+            case SANS:
+                return Typeface.SANS_SERIF;
+            case SERIF:
+                return Typeface.SERIF;
+            case MONOSPACE:
+                return Typeface.MONOSPACE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Maps the "not set" style index of the XML attributes (-1), e.g.
+     * fontFamily without textStyle, to {@link Typeface#NORMAL}.
+     */
+    private static int normalizeStyle(int style) {
+        return style < 0 ? Typeface.NORMAL : style;
+    }
+
+    /**
+     * Creates the default RingButton font and its style variants on a
+     * background thread. Call it early, e.g. from Activity.onCreate.
+     */
+    public static void warmUp(Context context) {
+        final Context appContext = context.getApplicationContext();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+                    Typeface roboto = getAsset(appContext, ROBOTO_PATH);
+                    for (int style = 0; roboto != null && style < STYLE_COUNT; style++) {
+                        create(roboto, style);
+                    }
+                }
+                for (int style = 0; style < STYLE_COUNT; style++) {
+                    create(DEFAULT_FAMILY, style);
+                }
+            }
+        }, "RingTypefaces warm-up");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+}
@@ -1,29 +1,154 @@
 package com.ai.ringbutton;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public final class Utils {
-    private static final AtomicInteger sNextGeneratedId = new AtomicInteger(1);
+    // aapt-generated IDs have the high byte nonzero; generated IDs stay under that.
+    private static final int MAX_GENERATED_ID = 0x00FFFFFF;
+    // one long of live bits per block, so a whole block is reserved with one CAS
+    private static final int ID_BLOCK_SHIFT = 6;
+    private static final int ID_BLOCK_SIZE = 1 << ID_BLOCK_SHIFT;
+    private static final int ID_BLOCK_COUNT = (MAX_GENERATED_ID + ID_BLOCK_SIZE) >>> ID_BLOCK_SHIFT;
+    // live bits are allocated in chunks of 1024 blocks (64K IDs), so an app that
+    // never generates more than a few thousand IDs pays for one 8 KB chunk
+    private static final int ID_CHUNK_SHIFT = 10;
+    private static final int ID_CHUNK_MASK = (1 << ID_CHUNK_SHIFT) - 1;
+    private static final int ID_CHUNK_COUNT = ID_BLOCK_COUNT >>> ID_CHUNK_SHIFT;
+    // blocks are handed out in 8 x 8 tiles, transposed, so that consecutive
+    // reservations hit words on different 64-byte cache lines
+    private static final int TILE_SHIFT = 3;
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+    private static final AtomicInteger sNextIdBlock = new AtomicInteger();
+    // bit i of a block's word is set while ID (block * 64 + i + 1) is live,
+    // i.e. handed out or reserved by a thread, and not released
+    private static final AtomicReferenceArray<AtomicLongArray> sLiveIds =
+            new AtomicReferenceArray<AtomicLongArray>(ID_CHUNK_COUNT);
+    private static final ThreadLocal<IdBlock> sThreadIdBlock = new ThreadLocal<IdBlock>() {
+        @Override
+        protected IdBlock initialValue() {
+            return new IdBlock();
+        }
+    };
+
+    /**
+     * IDs a thread reserved and has not handed out yet. Only the owning
+     * thread reads and writes it.
+     */
+    private static final class IdBlock {
+        int mFirstIndex;
+        long mFree;
+    }
 
     private Utils() { }
 
-    // Copied from View.java source
     /**
      * Generate a value suitable for use in #setId(int).
-     * This value will not collide with ID values generated at build time by aapt for R.id.
+     * This value will not collide with ID values generated at build time by aapt for R.id,
+     * nor with generated IDs that have not been released.
+     * <p>
+     * Each thread reserves all free IDs of a block of {@value #ID_BLOCK_SIZE} with a
+     * single CAS and hands them out without touching shared state, so threads
+     * inflating views in parallel contend once per block. IDs a thread reserved but
+     * did not hand out stay reserved when the thread ends.
      *
      * @return a generated ID value
+     * @throws IllegalStateException if every ID is live
+     * @see #releaseViewId(int)
      */
-    @SuppressWarnings("unused")
     public static int generateViewId() {
-        for (;;) {
-            final int result = sNextGeneratedId.get();
-            // aapt-generated IDs have the high byte nonzero; clamp to the range under that.
-            int newValue = result + 1;
-            if (newValue > 0x00FFFFFF) { newValue = 1; } // Roll over to 1, not 0.
-            if (sNextGeneratedId.compareAndSet(result, newValue)) {
-                return result;
+        IdBlock block = sThreadIdBlock.get();
+        if (block.mFree == 0) {
+            reserveBlock(block);
+        }
+        int bit = Long.numberOfTrailingZeros(block.mFree);
+        block.mFree &= block.mFree - 1;
+        return block.mFirstIndex + bit + 1; // Start at 1, not 0.
+    }
+
+    /**
+     * Fills the array with generated IDs, as if by calling
+     * {@link #generateViewId()} for each element.
+     */
+    public static void generateViewIds(int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generateViewId();
+        }
+    }
+
+    /**
+     * Returns an ID from {@link #generateViewId()} whose view is gone, so that
+     * it can be handed out again. IDs that are never released are never reused.
+     * Releasing an ID twice, or one out of the generated range, does nothing.
+     */
+    public static void releaseViewId(int id) {
+        if (id < 1 || id > MAX_GENERATED_ID) {
+            return;
+        }
+        int index = id - 1;
+        AtomicLongArray chunk = sLiveIds.get(index >>> (ID_BLOCK_SHIFT + ID_CHUNK_SHIFT));
+        if (chunk == null) {
+            return;
+        }
+        int word = (index >>> ID_BLOCK_SHIFT) & ID_CHUNK_MASK;
+        long bit = 1L << index;
+        while (true) {
+            long bits = chunk.get(word);
+            if ((bits & bit) == 0 || chunk.compareAndSet(word, bits, bits & ~bit)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks every free ID of the next block with a free ID as live and
+     * hands them to the thread.
+     *
+     * @throws IllegalStateException if every block is full
+     */
+    private static void reserveBlock(IdBlock block) {
+        for (int tried = 0; tried < ID_BLOCK_COUNT; tried++) {
+            int blockIndex = nextBlock();
+            AtomicLongArray chunk = getChunk(blockIndex >>> ID_CHUNK_SHIFT);
+            int word = blockIndex & ID_CHUNK_MASK;
+            while (true) {
+                long live = chunk.get(word);
+                if (live == -1L) {
+                    break;
+                }
+                if (chunk.compareAndSet(word, live, -1L)) {
+                    block.mFirstIndex = blockIndex << ID_BLOCK_SHIFT;
+                    block.mFree = ~live;
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("All " + MAX_GENERATED_ID + " generated view IDs are live");
+    }
+
+    /**
+     * @return index of the next block in round-robin order, with each tile
+     * of 64 blocks walked column by column
+     */
+    private static int nextBlock() {
+        int n = sNextIdBlock.getAndIncrement() & (ID_BLOCK_COUNT - 1);
+        int tile = n & ~((TILE_MASK << TILE_SHIFT) | TILE_MASK);
+        return tile | ((n & TILE_MASK) << TILE_SHIFT) | ((n >>> TILE_SHIFT) & TILE_MASK);
+    }
+
+    private static AtomicLongArray getChunk(int chunkIndex) {
+        AtomicLongArray chunk = sLiveIds.get(chunkIndex);
+        if (chunk == null) {
+            AtomicLongArray created = new AtomicLongArray(ID_CHUNK_MASK + 1);
+            if (chunkIndex == ID_CHUNK_COUNT - 1) {
+                // the last bit of the last block is past MAX_GENERATED_ID
+                created.set(ID_CHUNK_MASK, 1L << (ID_BLOCK_SIZE - 1));
             }
+            sLiveIds.compareAndSet(chunkIndex, null, created);
+            chunk = sLiveIds.get(chunkIndex);
         }
+        return chunk;
     }
 }
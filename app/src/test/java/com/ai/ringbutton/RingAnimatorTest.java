@@ -0,0 +1,190 @@
+package com.ai.ringbutton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link RingAnimator} on a fake frame clock.
+ */
+public class RingAnimatorTest {
+
+    private static final long FRAME_NANOS = 16000000L;
+
+    private FakeClock mClock;
+    private RingAnimator mAnimator;
+
+    /**
+     * Clock which only delivers a frame when the test asks for it.
+     */
+    private static final class FakeClock implements RingAnimator.FrameClock {
+        long mNow;
+        int mPosted;
+        RingAnimator mPending;
+
+        @Override
+        public long nanoTime() {
+            return mNow;
+        }
+
+        @Override
+        public void postFrame(RingAnimator animator) {
+            mPosted++;
+            mPending = animator;
+        }
+
+        /**
+         * @return false if no frame was requested
+         */
+        boolean frame() {
+            RingAnimator animator = mPending;
+            if (animator == null) {
+                return false;
+            }
+            mPending = null;
+            mNow += FRAME_NANOS;
+            animator.doFrame(mNow);
+            return true;
+        }
+    }
+
+    /**
+     * Client which animates for a fixed number of frames.
+     */
+    private static final class CountingClient implements RingAnimator.Client {
+        final int mFrames;
+        int mCalls;
+        long mLastFrameTime;
+
+        CountingClient(int frames) {
+            mFrames = frames;
+        }
+
+        @Override
+        public boolean onAnimationFrame(long frameTimeNanos) {
+            mCalls++;
+            mLastFrameTime = frameTimeNanos;
+            return mCalls < mFrames;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mClock = new FakeClock();
+        mAnimator = new RingAnimator(mClock);
+    }
+
+    @Test
+    public void clientIsCalledUntilItFinishes() {
+        CountingClient client = new CountingClient(3);
+        mAnimator.start(client);
+        while (mClock.frame()) {
+            // run to completion
+        }
+        assertEquals(3, client.mCalls);
+        assertEquals(3 * FRAME_NANOS, client.mLastFrameTime);
+        assertFalse(mAnimator.isRunning(client));
+    }
+
+    @Test
+    public void oneFrameRequestServesAllClients() {
+        CountingClient[] clients = new CountingClient[100];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new CountingClient(2);
+            mAnimator.start(clients[i]);
+        }
+        assertEquals(1, mClock.mPosted);
+        mClock.frame();
+        assertEquals(2, mClock.mPosted);
+        for (CountingClient client : clients) {
+            assertEquals(1, client.mCalls);
+        }
+    }
+
+    @Test
+    public void clockStopsWhenNoClientIsLeft() {
+        CountingClient shortClient = new CountingClient(1);
+        CountingClient longClient = new CountingClient(4);
+        mAnimator.start(shortClient);
+        mAnimator.start(longClient);
+        int frames = 0;
+        while (mClock.frame()) {
+            frames++;
+        }
+        assertEquals(4, frames);
+        assertEquals(1, shortClient.mCalls);
+        assertEquals(4, longClient.mCalls);
+        assertEquals(4, mClock.mPosted);
+    }
+
+    @Test
+    public void startTwiceSubscribesOnce() {
+        CountingClient client = new CountingClient(10);
+        mAnimator.start(client);
+        mAnimator.start(client);
+        mClock.frame();
+        assertEquals(1, client.mCalls);
+        assertEquals(2, mClock.mPosted);
+    }
+
+    @Test
+    public void cancelledClientGetsNoFrames() {
+        CountingClient client = new CountingClient(10);
+        mAnimator.start(client);
+        assertTrue(mAnimator.isRunning(client));
+        mAnimator.cancel(client);
+        assertFalse(mAnimator.isRunning(client));
+        mClock.frame();
+        assertEquals(0, client.mCalls);
+        assertFalse(mClock.frame());
+    }
+
+    @Test
+    public void clientMayCancelAnotherDuringFrame() {
+        final CountingClient victim = new CountingClient(10);
+        RingAnimator.Client canceller = new RingAnimator.Client() {
+            @Override
+            public boolean onAnimationFrame(long frameTimeNanos) {
+                mAnimator.cancel(victim);
+                return false;
+            }
+        };
+        // clients are called last-subscribed first
+        mAnimator.start(victim);
+        mAnimator.start(canceller);
+        mClock.frame();
+        assertEquals(0, victim.mCalls);
+        assertFalse(mClock.frame());
+    }
+
+    @Test
+    public void restartAfterIdleRequestsNewFrame() {
+        CountingClient first = new CountingClient(1);
+        mAnimator.start(first);
+        mClock.frame();
+        assertFalse(mClock.frame());
+        CountingClient second = new CountingClient(1);
+        mAnimator.start(second);
+        assertTrue(mClock.frame());
+        assertEquals(1, second.mCalls);
+    }
+
+    @Test
+    public void colorTableInterpolatesEachChannel() {
+        int[] table = new int[5];
+        RingAnimator.fillColorTable(0xFF000000, 0x80FF8040, table);
+        assertEquals(0xFF000000, table[0]);
+        assertEquals(0x80FF8040, table[4]);
+        assertEquals(0xC07F4020, table[2]);
+    }
+
+    @Test
+    public void colorTableOfOneEntryIsTarget() {
+        int[] table = new int[1];
+        RingAnimator.fillColorTable(0xFFFFBB33, 0xFF33B5E5, table);
+        assertEquals(0xFF33B5E5, table[0]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ai.ringbutton;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that the fitted size cache is keyed on everything that changes
+ * the measured text width. The search itself needs a real TextPaint and is
+ * checked by RingTextFitTest in the instrumentation tests.
+ */
+public class RingTextFitterTest {
+
+    private static final int FAKE_BOLD = 0x20;
+    private static final int SUBPIXEL = 0x80;
+
+    private static RingTextFitter.Key key(int flags, float scaleX, float skewX,
+                                          float letterSpacing, String features) {
+        RingTextFitter.Key key = new RingTextFitter.Key();
+        key.set("RingButton", 300, 10, 40);
+        key.setPaintStyle(null, flags, scaleX, skewX, letterSpacing, features);
+        return key;
+    }
+
+    private static RingTextFitter.Key plain() {
+        return key(SUBPIXEL, 1, 0, 0, null);
+    }
+
+    @Test
+    public void equalStylesMatch() {
+        assertEquals(plain(), plain());
+        assertEquals(plain().hashCode(), plain().hashCode());
+        assertEquals(key(0, 1.2f, -0.25f, 0.1f, "smcp"), key(0, 1.2f, -0.25f, 0.1f, "smcp"));
+    }
+
+    @Test
+    public void copyMatchesOriginal() {
+        RingTextFitter.Key key = key(FAKE_BOLD, 1.2f, -0.25f, 0.1f, "smcp");
+        RingTextFitter.Key copy = key.copy();
+        assertEquals(key, copy);
+        assertEquals(key.hashCode(), copy.hashCode());
+        key.set("Ring", 300, 10, 40);
+        assertNotEquals(key, copy);
+    }
+
+    @Test
+    public void paintFlagsAreKeyed() {
+        assertNotEquals(plain(), key(SUBPIXEL | FAKE_BOLD, 1, 0, 0, null));
+        assertNotEquals(plain(), key(0, 1, 0, 0, null));
+    }
+
+    @Test
+    public void textScaleAndSkewAreKeyed() {
+        assertNotEquals(plain(), key(SUBPIXEL, 1.5f, 0, 0, null));
+        assertNotEquals(plain(), key(SUBPIXEL, 1, -0.25f, 0, null));
+    }
+
+    @Test
+    public void letterSpacingIsKeyed() {
+        assertNotEquals(plain(), key(SUBPIXEL, 1, 0, 0.05f, null));
+    }
+
+    @Test
+    public void fontFeatureSettingsAreKeyed() {
+        assertNotEquals(plain(), key(SUBPIXEL, 1, 0, 0, "smcp"));
+        assertNotEquals(key(SUBPIXEL, 1, 0, 0, "smcp"), key(SUBPIXEL, 1, 0, 0, "onum"));
+        assertFalse(key(SUBPIXEL, 1, 0, 0, "smcp").equals(plain()));
+    }
+}
@@ -0,0 +1,218 @@
+package com.ai.ringbutton;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that generated view IDs stay unique across threads, that only
+ * released IDs come back, that a full generator fails, and compares the
+ * per-thread blocks with the single shared counter they replaced.
+ * <p>
+ * The generator is global, so every test releases the IDs it took.
+ */
+public class UtilsTest {
+
+    private static final int MAX_GENERATED_ID = 0x00FFFFFF;
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50000;
+    private static final int BENCHMARK_IDS_PER_THREAD = 1000000;
+
+    /**
+     * Generates IDs on several threads at once.
+     *
+     * @return the IDs of each thread
+     */
+    private static int[][] generateConcurrently(final int perThread) throws InterruptedException {
+        final int[][] ids = new int[THREADS][perThread];
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int[] own = ids[t];
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    Utils.generateViewIds(own);
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return ids;
+    }
+
+    private static void releaseAll(int[]... ids) {
+        for (int[] own : ids) {
+            for (int id : own) {
+                Utils.releaseViewId(id);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentIdsAreUnique() throws InterruptedException {
+        int[][] ids = generateConcurrently(IDS_PER_THREAD);
+        try {
+            BitSet seen = new BitSet();
+            for (int[] own : ids) {
+                for (int id : own) {
+                    assertTrue("out of range: " + id, id >= 1 && id <= MAX_GENERATED_ID);
+                    assertFalse("duplicate: " + id, seen.get(id));
+                    seen.set(id);
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, seen.cardinality());
+        } finally {
+            releaseAll(ids);
+        }
+    }
+
+    @Test
+    public void releasingIdsThatAreNotLiveIsIgnored() {
+        int id = Utils.generateViewId();
+        Utils.releaseViewId(id);
+        Utils.releaseViewId(id);
+        Utils.releaseViewId(0);
+        Utils.releaseViewId(-1);
+        Utils.releaseViewId(MAX_GENERATED_ID + 1);
+        Utils.releaseViewId(0x7F010000);
+    }
+
+    /**
+     * Takes every ID, then checks that a double release frees the ID once
+     * and that a full generator fails instead of handing out a live ID.
+     */
+    @Test
+    public void onlyReleasedIdsComeBackAndFullGeneratorFails() throws InterruptedException {
+        final BitSet seen = new BitSet(MAX_GENERATED_ID + 1);
+        try {
+            try {
+                while (true) {
+                    int id = Utils.generateViewId();
+                    assertFalse("duplicate: " + id, seen.get(id));
+                    seen.set(id);
+                }
+            } catch (IllegalStateException expected) {
+                // every ID is live
+            }
+            // threads of other tests ended with part of a block reserved
+            assertTrue(seen.cardinality() > MAX_GENERATED_ID - 64 * 64);
+
+            int victim = seen.nextSetBit(4242);
+            Utils.releaseViewId(victim);
+            Utils.releaseViewId(victim);
+            Utils.releaseViewId(MAX_GENERATED_ID + 1);
+            assertEquals(victim, Utils.generateViewId());
+
+            // a thread that never took from the block holding the ID finds it too
+            Utils.releaseViewId(victim);
+            final int[] taken = new int[1];
+            Thread other = new Thread() {
+                @Override
+                public void run() {
+                    taken[0] = Utils.generateViewId();
+                }
+            };
+            other.start();
+            other.join();
+            assertEquals(victim, taken[0]);
+
+            try {
+                fail("generated " + Utils.generateViewId() + " with every ID live");
+            } catch (IllegalStateException expected) {
+                // still full
+            }
+        } finally {
+            for (int id = seen.nextSetBit(0); id >= 0; id = seen.nextSetBit(id + 1)) {
+                Utils.releaseViewId(id);
+            }
+        }
+    }
+
+    /**
+     * The generator this class had before IDs were taken in blocks.
+     */
+    private static final AtomicInteger sNextGeneratedId = new AtomicInteger(1);
+
+    private static int generateWithSharedCounter() {
+        for (;;) {
+            final int result = sNextGeneratedId.get();
+            int newValue = result + 1;
+            if (newValue > MAX_GENERATED_ID) newValue = 1;
+            if (sNextGeneratedId.compareAndSet(result, newValue)) {
+                return result;
+            }
+        }
+    }
+
+    private static long runThreads(final boolean blocks) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final int[] sinks = new int[THREADS];
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int slot = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    int sink = 0;
+                    for (int i = 0; i < BENCHMARK_IDS_PER_THREAD; i++) {
+                        if (blocks) {
+                            int id = Utils.generateViewId();
+                            Utils.releaseViewId(id);
+                            sink += id;
+                        } else {
+                            sink += generateWithSharedCounter();
+                        }
+                    }
+                    sinks[slot] = sink;
+                }
+            };
+            threads[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Prints IDs per second of both generators. Blocks pay a release per ID
+     * here, and contention only shows with several cores, so no ratio is
+     * asserted.
+     */
+    @Test
+    public void benchmarkAgainstSharedCounter() throws InterruptedException {
+        // warm up both paths
+        runThreads(true);
+        runThreads(false);
+        long blocks = runThreads(true);
+        long shared = runThreads(false);
+        double total = (double) THREADS * BENCHMARK_IDS_PER_THREAD;
+        System.out.println(String.format(Locale.US,
+                "view IDs, %d threads: blocks %.1fM/s (with release), shared counter %.1fM/s",
+                THREADS, total * 1e3 / blocks, total * 1e3 / shared));
+    }
+}
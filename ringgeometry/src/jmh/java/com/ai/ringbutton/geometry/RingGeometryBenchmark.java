@@ -0,0 +1,94 @@
+package com.ai.ringbutton.geometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of the per-touch and per-layout geometry of RingButton.
+ * Touch points are spread over the whole view so both branches of the
+ * annulus test are taken.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingGeometryBenchmark {
+
+    private static final int POINTS = 1024;
+    private static final float DIAMETER = 400f;
+
+    @Param({"8", "32", "128"})
+    public int glyphCount;
+
+    private final float[] mDx = new float[POINTS];
+    private final float[] mDy = new float[POINTS];
+    private float[] mWidths;
+    private float[] mAngles;
+    private final float[] mBounds = new float[4];
+    private float mInnerRadius, mOuterRadius, mCenterlineRadius;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < POINTS; i++) {
+            mDx[i] = (random.nextFloat() - 0.5f) * DIAMETER;
+            mDy[i] = (random.nextFloat() - 0.5f) * DIAMETER;
+        }
+        float internal = RingGeometry.resolveInternalDiameter(DIAMETER, -1);
+        mInnerRadius = internal / 2;
+        mOuterRadius = DIAMETER / 2;
+        mCenterlineRadius = RingGeometry.centerlineRadius(DIAMETER, internal);
+        mWidths = new float[glyphCount];
+        mAngles = new float[glyphCount];
+        for (int i = 0; i < glyphCount; i++) {
+            mWidths[i] = 6 + random.nextFloat() * 6;
+        }
+    }
+
+    private int next() {
+        mNext = (mNext + 1) & (POINTS - 1);
+        return mNext;
+    }
+
+    @Benchmark
+    public boolean isInAnnulus() {
+        int i = next();
+        return RingGeometry.isInAnnulus(mDx[i], mDy[i], mInnerRadius, mOuterRadius);
+    }
+
+    @Benchmark
+    public float angleOf() {
+        int i = next();
+        return RingGeometry.angleOf(mDx[i], mDy[i]);
+    }
+
+    @Benchmark
+    public void arcBounds(Blackhole bh) {
+        int i = next();
+        float from = RingGeometry.angleOf(mDx[i], mDy[i]);
+        RingGeometry.arcBounds(0, 0, mCenterlineRadius, from, from + 45, 1, mBounds);
+        bh.consume(mBounds);
+    }
+
+    @Benchmark
+    public void placeGlyphs(Blackhole bh) {
+        RingGeometry.placeGlyphs(mWidths, glyphCount, mCenterlineRadius, mAngles);
+        bh.consume(mAngles);
+    }
+}
@@ -0,0 +1,175 @@
+package com.ai.ringbutton.geometry;
+
+/**
+ * Annulus math of RingButton, free of Android so it can be tested and
+ * benchmarked on a plain JVM.
+ * <p>
+ * Angles are in degrees, clockwise from 12 o'clock; coordinates are pixels
+ * with the y axis pointing down. Nothing here allocates.
+ */
+public final class RingGeometry {
+
+    /** Internal diameter as a fraction of the external one by default. */
+    public static final float INTERNAL_DIAMETER_FRACTION = 0.25f;
+
+    public static final float FULL_CIRCLE = 360f;
+    private static final double HALF_CIRCLE_DEGREES = 180.0;
+    private static final float QUARTER_CIRCLE = 90f;
+
+    /** Indices into the bounds array of {@link #arcBounds}. */
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+
+    private RingGeometry() { }
+
+    /**
+     * @param internalDiameter requested internal diameter, negative for the
+     *                         default fraction of the external one
+     */
+    public static float resolveInternalDiameter(float externalDiameter, float internalDiameter) {
+        return internalDiameter < 0
+                ? externalDiameter * INTERNAL_DIAMETER_FRACTION : internalDiameter;
+    }
+
+    /**
+     * @return width of the ring stroke, which is drawn along the centerline
+     */
+    public static float strokeWidth(float externalDiameter, float internalDiameter) {
+        return (externalDiameter - internalDiameter) / 2.0f;
+    }
+
+    /**
+     * @return radius of the centerline, midway between the internal and the
+     * external circle; the text runs along it
+     */
+    public static float centerlineRadius(float externalDiameter, float internalDiameter) {
+        return (internalDiameter + strokeWidth(externalDiameter, internalDiameter)) / 2.0f;
+    }
+
+    /**
+     * @param dx horizontal distance from the ring center
+     * @param dy vertical distance from the ring center
+     * @return true if the point lies between the internal and the external
+     * circle, borders included
+     */
+    public static boolean isInAnnulus(float dx, float dy, float innerRadius, float outerRadius) {
+        float distanceSquared = dx * dx + dy * dy;
+        return distanceSquared <= outerRadius * outerRadius
+                && distanceSquared >= innerRadius * innerRadius;
+    }
+
+    /**
+     * @param dx horizontal distance from the ring center
+     * @param dy vertical distance from the ring center, positive downwards
+     * @return angle of the point in [0, 360)
+     */
+    public static float angleOf(float dx, float dy) {
+        return normalizeAngle((float) Math.toDegrees(Math.atan2(dx, -dy)));
+    }
+
+    /**
+     * @return the angle moved into [0, 360)
+     */
+    public static float normalizeAngle(float angle) {
+        angle %= FULL_CIRCLE;
+        if (angle < 0) {
+            angle += FULL_CIRCLE;
+        }
+        // -1e-6f % 360 + 360 rounds to 360
+        return angle >= FULL_CIRCLE ? 0 : angle;
+    }
+
+    /**
+     * @return true if the angle lies within the arc starting at
+     * {@code startAngle} and sweeping clockwise by {@code sweepAngle}
+     */
+    public static boolean isAngleInArc(float angle, float startAngle, float sweepAngle) {
+        return sweepAngle >= FULL_CIRCLE || normalizeAngle(angle - startAngle) < sweepAngle;
+    }
+
+    /**
+     * @return angle for android.graphics.Path.addArc and Canvas.drawArc,
+     * which count from 3 o'clock
+     */
+    public static float toDrawingAngle(float angle) {
+        return angle - QUARTER_CIRCLE;
+    }
+
+    /**
+     * Computes the bounds of the centerline arc between two angles, widened
+     * by {@code inset} on every side, e.g. half the stroke width.
+     *
+     * @param fromAngle start angle, not greater than {@code toAngle}
+     * @param out       receives left, top, right, bottom
+     */
+    public static void arcBounds(float cx, float cy, float radius, float fromAngle,
+                                 float toAngle, float inset, float[] out) {
+        double radians = Math.toRadians(fromAngle);
+        float x = cx + (float) (radius * Math.sin(radians));
+        float y = cy - (float) (radius * Math.cos(radians));
+        out[LEFT] = x;
+        out[TOP] = y;
+        out[RIGHT] = x;
+        out[BOTTOM] = y;
+        includeArcPoint(cx, cy, radius, toAngle, out);
+        // extreme points where the arc crosses 12, 3, 6 or 9 o'clock
+        for (float a = (float) Math.ceil(fromAngle / QUARTER_CIRCLE) * QUARTER_CIRCLE;
+             a < toAngle; a += QUARTER_CIRCLE) {
+            includeArcPoint(cx, cy, radius, a, out);
+        }
+        out[LEFT] -= inset;
+        out[TOP] -= inset;
+        out[RIGHT] += inset;
+        out[BOTTOM] += inset;
+    }
+
+    private static void includeArcPoint(float cx, float cy, float radius, float angle,
+                                        float[] out) {
+        double radians = Math.toRadians(angle);
+        float x = cx + (float) (radius * Math.sin(radians));
+        float y = cy - (float) (radius * Math.cos(radians));
+        out[LEFT] = Math.min(out[LEFT], x);
+        out[TOP] = Math.min(out[TOP], y);
+        out[RIGHT] = Math.max(out[RIGHT], x);
+        out[BOTTOM] = Math.max(out[BOTTOM], y);
+    }
+
+    /**
+     * Computes the rotation of every glyph so that the text is centered at
+     * the top of a circle.
+     *
+     * @param widths advances of the first {@code count} glyphs
+     * @param radius radius of the circle the text runs along
+     * @param angles receives the angles, at least {@code count} long; left
+     *               untouched if the radius is not positive
+     */
+    public static void placeGlyphs(float[] widths, int count, float radius, float[] angles) {
+        placeGlyphs(widths, count, radius, 0, angles);
+    }
+
+    /**
+     * Computes the rotation of every glyph so that the text is centered at
+     * the given angle of a circle, e.g. in the middle of an arc.
+     *
+     * @param centerAngle degrees clockwise from 12 o'clock
+     * @see #placeGlyphs(float[], int, float, float[])
+     */
+    public static void placeGlyphs(float[] widths, int count, float radius, float centerAngle,
+                                   float[] angles) {
+        if (radius <= 0) {
+            return;
+        }
+        float total = 0;
+        for (int i = 0; i < count; i++) {
+            total += widths[i];
+        }
+        float degreesPerPixel = (float) (HALF_CIRCLE_DEGREES / (Math.PI * radius));
+        float advance = -total / 2.0f;
+        for (int i = 0; i < count; i++) {
+            angles[i] = centerAngle + (advance + widths[i] / 2.0f) * degreesPerPixel;
+            advance += widths[i];
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.ai.ringbutton.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the annulus math against values worked out by hand.
+ */
+public class RingGeometryTest {
+
+    private static final float EPSILON = 1e-4f;
+
+    @Test
+    public void negativeInternalDiameterUsesDefaultFraction() {
+        assertEquals(100f, RingGeometry.resolveInternalDiameter(400, -1), 0);
+        assertEquals(0f, RingGeometry.resolveInternalDiameter(400, 0), 0);
+        assertEquals(120f, RingGeometry.resolveInternalDiameter(400, 120), 0);
+    }
+
+    @Test
+    public void strokeAndCenterlineLieMidwayBetweenCircles() {
+        assertEquals(150f, RingGeometry.strokeWidth(400, 100), 0);
+        // inner radius 50 plus half the stroke
+        assertEquals(125f, RingGeometry.centerlineRadius(400, 100), 0);
+        assertEquals(100f, RingGeometry.centerlineRadius(400, 0), 0);
+    }
+
+    @Test
+    public void annulusIncludesBothBorders() {
+        assertTrue(RingGeometry.isInAnnulus(0, -75, 50, 200));
+        assertTrue(RingGeometry.isInAnnulus(50, 0, 50, 200));
+        assertTrue(RingGeometry.isInAnnulus(0, 200, 50, 200));
+        assertFalse(RingGeometry.isInAnnulus(0, 0, 50, 200));
+        assertFalse(RingGeometry.isInAnnulus(30, 30, 50, 200));
+        assertFalse(RingGeometry.isInAnnulus(150, 150, 50, 200));
+    }
+
+    @Test
+    public void anglesRunClockwiseFromTwelve() {
+        assertEquals(0f, RingGeometry.angleOf(0, -1), EPSILON);
+        assertEquals(90f, RingGeometry.angleOf(1, 0), EPSILON);
+        assertEquals(180f, RingGeometry.angleOf(0, 1), EPSILON);
+        assertEquals(270f, RingGeometry.angleOf(-1, 0), EPSILON);
+        assertEquals(45f, RingGeometry.angleOf(1, -1), EPSILON);
+    }
+
+    @Test
+    public void normalizedAnglesStayBelowFullCircle() {
+        assertEquals(0f, RingGeometry.normalizeAngle(360), 0);
+        assertEquals(270f, RingGeometry.normalizeAngle(-90), 0);
+        assertEquals(30f, RingGeometry.normalizeAngle(750), 0);
+        float tiny = RingGeometry.normalizeAngle(-1e-6f);
+        assertTrue(tiny >= 0 && tiny < RingGeometry.FULL_CIRCLE);
+    }
+
+    @Test
+    public void drawingAnglesCountFromThree() {
+        assertEquals(-90f, RingGeometry.toDrawingAngle(0), 0);
+        assertEquals(0f, RingGeometry.toDrawingAngle(90), 0);
+        assertEquals(180f, RingGeometry.toDrawingAngle(270), 0);
+    }
+
+    @Test
+    public void arcsWrapAroundTwelve() {
+        assertTrue(RingGeometry.isAngleInArc(100, 90, 90));
+        assertTrue(RingGeometry.isAngleInArc(90, 90, 90));
+        assertFalse(RingGeometry.isAngleInArc(180, 90, 90));
+        assertTrue(RingGeometry.isAngleInArc(10, 330, 60));
+        assertTrue(RingGeometry.isAngleInArc(-20, 330, 60));
+        assertFalse(RingGeometry.isAngleInArc(40, 330, 60));
+        assertTrue(RingGeometry.isAngleInArc(123, 0, 360));
+    }
+
+    @Test
+    public void arcBoundsIncludeCrossedQuarters() {
+        float[] bounds = new float[4];
+        // from 12 to 6 o'clock passes 3 o'clock
+        RingGeometry.arcBounds(100, 100, 50, 0, 180, 0, bounds);
+        assertArrayEquals(new float[] {100, 50, 150, 150}, bounds, EPSILON);
+
+        // a short arc within one quarter is bounded by its ends, plus the inset
+        RingGeometry.arcBounds(0, 0, 10, 30, 60, 2, bounds);
+        float sin30 = 5f;
+        float cos30 = (float) (10 * Math.cos(Math.toRadians(30)));
+        assertArrayEquals(new float[] {sin30 - 2, -cos30 - 2, cos30 + 2, -sin30 + 2},
+                bounds, EPSILON);
+
+        // past 12 o'clock on the second lap
+        RingGeometry.arcBounds(0, 0, 10, 315, 405, 0, bounds);
+        assertEquals(-10f, bounds[RingGeometry.TOP], EPSILON);
+    }
+
+    @Test
+    public void glyphsAreCenteredAtTwelve() {
+        float radius = (float) (180 / Math.PI);
+        // one pixel of arc is one degree at this radius
+        float[] widths = {10, 20, 10};
+        float[] angles = new float[3];
+        RingGeometry.placeGlyphs(widths, 3, radius, angles);
+        assertArrayEquals(new float[] {-15, 0, 15}, angles, EPSILON);
+
+        // only the first count glyphs take part
+        RingGeometry.placeGlyphs(widths, 2, radius, angles);
+        assertArrayEquals(new float[] {-10, 5, 15}, angles, EPSILON);
+    }
+
+    @Test
+    public void glyphsAreCenteredAtGivenAngle() {
+        float radius = (float) (180 / Math.PI);
+        float[] widths = {10, 20, 10};
+        float[] angles = new float[3];
+        RingGeometry.placeGlyphs(widths, 3, radius, 135, angles);
+        assertArrayEquals(new float[] {120, 135, 150}, angles, EPSILON);
+
+        float[] atTwelve = new float[3];
+        RingGeometry.placeGlyphs(widths, 3, radius, 0, atTwelve);
+        for (int i = 0; i < angles.length; i++) {
+            assertEquals(atTwelve[i] + 135, angles[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void glyphsAreLeftAloneWithoutRadius() {
+        float[] angles = {7, 7};
+        RingGeometry.placeGlyphs(new float[] {10, 10}, 2, 0, 90, angles);
+        assertArrayEquals(new float[] {7, 7}, angles, 0);
+    }
+}
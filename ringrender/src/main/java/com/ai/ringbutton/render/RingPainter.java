@@ -0,0 +1,96 @@
+package com.ai.ringbutton.render;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+
+/**
+ * Draws rings onto a {@link RingSurface} with the geometry and glyph
+ * placement of RingButton, so that every backend renders the same picture
+ * from the same configuration.
+ * <p>
+ * Geometry and glyph placement come from {@link RingGeometry}, which
+ * RingButton uses as well. An instance keeps scratch arrays between
+ * {@link #paint} calls and must not be shared between threads.
+ */
+public final class RingPainter {
+
+    private char[] mChars = new char[0];
+    private float[] mWidths = new float[0];
+    private float[] mAngles = new float[0];
+
+    /**
+     * Draws the ring described by {@code spec} centered in a
+     * width x height area, filling its smaller side like a RingButton.
+     */
+    public void paint(RingSpec spec, RingSurface surface, float width, float height) {
+        float extDiameter = Math.min(width, height);
+        float intDiameter = RingGeometry.resolveInternalDiameter(extDiameter,
+                spec.internalDiameter);
+        float strokeWidth = RingGeometry.strokeWidth(extDiameter, intDiameter);
+        float radius = RingGeometry.centerlineRadius(extDiameter, intDiameter);
+        float cx = width / 2.0f;
+        float cy = height / 2.0f;
+
+        surface.setTextStyle(spec.textSize, spec.shadowRadius, spec.shadowDx, spec.shadowDy,
+                spec.shadowColor);
+        surface.drawRing(cx, cy, radius, strokeWidth, spec.ringColor);
+        float vOffset = computeVOffset(surface.getAscent(), surface.getDescent());
+        // segments and their labels, then progress and text on top, like RingButton
+        for (int i = 0; i < spec.segmentCount; i++) {
+            float start = spec.segmentStartAngles[i];
+            float sweep = spec.segmentSweepAngles[i];
+            surface.drawArc(cx, cy, radius, strokeWidth, start, sweep, spec.segmentColors[i]);
+            drawText(surface, spec.segmentLabels[i], cx, cy, radius, start + sweep / 2,
+                    vOffset, spec.textColor);
+        }
+        if (spec.progress > 0) {
+            surface.drawArc(cx, cy, radius, strokeWidth, 0,
+                    spec.progress * RingGeometry.FULL_CIRCLE, spec.progressColor);
+        }
+        drawText(surface, spec.text, cx, cy, radius, 0, vOffset, spec.textColor);
+    }
+
+    /**
+     * Draws text along the centerline, centered on {@code centerAngle}.
+     */
+    private void drawText(RingSurface surface, String text, float cx, float cy, float radius,
+                          float centerAngle, float vOffset, int color) {
+        if (text == null || text.length() == 0) {
+            return;
+        }
+        int n = text.length();
+        if (mChars.length < n) {
+            mChars = new char[n];
+            mWidths = new float[n];
+            mAngles = new float[n];
+        }
+        text.getChars(0, n, mChars, 0);
+        surface.getGlyphWidths(mChars, n, mWidths);
+        RingGeometry.placeGlyphs(mWidths, n, radius, centerAngle, mAngles);
+        drawGlyphs(surface, cx, cy, radius, vOffset, mChars, n, mAngles, color);
+    }
+
+    /**
+     * @param ascent  negative distance of the glyph tops above the baseline
+     * @param descent distance of the glyph bottoms below the baseline
+     * @return baseline offset which centers the text on a line
+     */
+    public static float computeVOffset(float ascent, float descent) {
+        return -descent + (descent - ascent) / 2.0f;
+    }
+
+    /**
+     * Draws each glyph upright on the circle, rotated by its angle around
+     * the center. Surrogate pairs are drawn together.
+     */
+    public static void drawGlyphs(RingSurface surface, float cx, float cy, float radius,
+                                  float vOffset, char[] chars, int count, float[] angles,
+                                  int color) {
+        float y = cy - radius + vOffset;
+        int i = 0;
+        while (i < count) {
+            int glyphChars = Character.isHighSurrogate(chars[i]) && i + 1 < count ? 2 : 1;
+            surface.drawGlyph(chars, i, glyphChars, cx, y, angles[i], cx, cy, color);
+            i += glyphChars;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.ai.ringbutton.render;
+
+import java.util.Arrays;
+
+/**
+ * Immutable description of one ring: the subset of RingButton properties
+ * needed to draw it outside of a view.
+ * <p>
+ * Segment angles are in degrees, clockwise from 12 o'clock, like the
+ * segments of RingButton.
+ *
+ * @see RingPainter#paint(RingSpec, RingSurface, float, float)
+ */
+public final class RingSpec {
+
+    /** ARGB defaults of RingButton. */
+    public static final int DEFAULT_RING_COLOR = 0xFFFFBB33;
+    public static final int DEFAULT_TEXT_COLOR = 0xFF33B5E5;
+    public static final int DEFAULT_PROGRESS_COLOR = 0x80FFFFFF;
+
+    final int internalDiameter;
+    final int ringColor;
+    final int textColor;
+    final String text;
+    final float textSize;
+    final String fontFamily;
+    final float shadowRadius;
+    final float shadowDx;
+    final float shadowDy;
+    final int shadowColor;
+    final int segmentCount;
+    final float[] segmentStartAngles;
+    final float[] segmentSweepAngles;
+    final int[] segmentColors;
+    final String[] segmentLabels;
+    final float progress;
+    final int progressColor;
+
+    private RingSpec(Builder b) {
+        internalDiameter = b.mInternalDiameter;
+        ringColor = b.mRingColor;
+        textColor = b.mTextColor;
+        text = b.mText;
+        textSize = b.mTextSize;
+        fontFamily = b.mFontFamily;
+        shadowRadius = b.mShadowRadius;
+        shadowDx = b.mShadowDx;
+        shadowDy = b.mShadowDy;
+        shadowColor = b.mShadowColor;
+        segmentCount = b.mSegmentCount;
+        segmentStartAngles = Arrays.copyOf(b.mSegmentStartAngles, segmentCount);
+        segmentSweepAngles = Arrays.copyOf(b.mSegmentSweepAngles, segmentCount);
+        segmentColors = Arrays.copyOf(b.mSegmentColors, segmentCount);
+        segmentLabels = Arrays.copyOf(b.mSegmentLabels, segmentCount);
+        progress = b.mProgress;
+        progressColor = b.mProgressColor;
+    }
+
+    /**
+     * @return internal diameter in pixels or -1 for the RingButton default
+     */
+    public int getInternalDiameter() {
+        return internalDiameter;
+    }
+
+    public int getRingColor() {
+        return ringColor;
+    }
+
+    public int getTextColor() {
+        return textColor;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public float getTextSize() {
+        return textSize;
+    }
+
+    /**
+     * @return font family name, e.g. "sans-serif"
+     */
+    public String getFontFamily() {
+        return fontFamily;
+    }
+
+    public float getShadowRadius() {
+        return shadowRadius;
+    }
+
+    public float getShadowDx() {
+        return shadowDx;
+    }
+
+    public float getShadowDy() {
+        return shadowDy;
+    }
+
+    public int getShadowColor() {
+        return shadowColor;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public float getSegmentStartAngle(int index) {
+        return segmentStartAngles[index];
+    }
+
+    public float getSegmentSweepAngle(int index) {
+        return segmentSweepAngles[index];
+    }
+
+    public int getSegmentColor(int index) {
+        return segmentColors[index];
+    }
+
+    /**
+     * @return label of the segment or null
+     */
+    public String getSegmentLabel(int index) {
+        return segmentLabels[index];
+    }
+
+    /**
+     * @return progress in [0, 1], drawn as an arc from 12 o'clock
+     */
+    public float getProgress() {
+        return progress;
+    }
+
+    public int getProgressColor() {
+        return progressColor;
+    }
+
+    /**
+     * Builds RingSpecs, starting from the RingButton defaults.
+     */
+    public static final class Builder {
+        private int mInternalDiameter = -1;
+        private int mRingColor = DEFAULT_RING_COLOR;
+        private int mTextColor = DEFAULT_TEXT_COLOR;
+        private String mText;
+        private float mTextSize;
+        private String mFontFamily = "sans-serif";
+        private float mShadowRadius;
+        private float mShadowDx;
+        private float mShadowDy;
+        private int mShadowColor;
+        private int mSegmentCount;
+        private float[] mSegmentStartAngles = new float[0];
+        private float[] mSegmentSweepAngles = new float[0];
+        private int[] mSegmentColors = new int[0];
+        private String[] mSegmentLabels = new String[0];
+        private float mProgress;
+        private int mProgressColor = DEFAULT_PROGRESS_COLOR;
+
+        /**
+         * @param textSize text size in pixels
+         */
+        public Builder(float textSize) {
+            mTextSize = textSize;
+        }
+
+        public Builder internalDiameter(int internalDiameter) {
+            mInternalDiameter = internalDiameter;
+            return this;
+        }
+
+        public Builder ringColor(int color) {
+            mRingColor = color;
+            return this;
+        }
+
+        public Builder textColor(int color) {
+            mTextColor = color;
+            return this;
+        }
+
+        public Builder text(String text) {
+            mText = text;
+            return this;
+        }
+
+        public Builder textSize(float textSize) {
+            mTextSize = textSize;
+            return this;
+        }
+
+        public Builder fontFamily(String fontFamily) {
+            mFontFamily = fontFamily;
+            return this;
+        }
+
+        public Builder shadow(float radius, float dx, float dy, int color) {
+            mShadowRadius = radius;
+            mShadowDx = dx;
+            mShadowDy = dy;
+            mShadowColor = color;
+            return this;
+        }
+
+        /**
+         * Adds a colored arc drawn over the ring, with an optional label
+         * along it.
+         *
+         * @param startAngle degrees clockwise from 12 o'clock
+         * @param sweepAngle degrees clockwise from the start angle
+         * @param label      text drawn along the arc, or null
+         */
+        public Builder addSegment(float startAngle, float sweepAngle, int color, String label) {
+            if (mSegmentCount == mSegmentColors.length) {
+                int capacity = Math.max(4, mSegmentCount * 2);
+                mSegmentStartAngles = Arrays.copyOf(mSegmentStartAngles, capacity);
+                mSegmentSweepAngles = Arrays.copyOf(mSegmentSweepAngles, capacity);
+                mSegmentColors = Arrays.copyOf(mSegmentColors, capacity);
+                mSegmentLabels = Arrays.copyOf(mSegmentLabels, capacity);
+            }
+            mSegmentStartAngles[mSegmentCount] = startAngle;
+            mSegmentSweepAngles[mSegmentCount] = sweepAngle;
+            mSegmentColors[mSegmentCount] = color;
+            mSegmentLabels[mSegmentCount] = label;
+            mSegmentCount++;
+            return this;
+        }
+
+        /**
+         * @param progress fraction of the ring covered by the progress arc,
+         *                 clamped to [0, 1]
+         */
+        public Builder progress(float progress) {
+            mProgress = Math.max(0f, Math.min(1f, progress));
+            return this;
+        }
+
+        public Builder progressColor(int color) {
+            mProgressColor = color;
+            return this;
+        }
+
+        public RingSpec build() {
+            return new RingSpec(this);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ai.ringbutton.render;
+
+/**
+ * Drawing target of {@link RingPainter}: the few primitives a ring needs,
+ * implemented on top of android.graphics.Canvas in the app and Java2D on
+ * plain JVMs.
+ * <p>
+ * Colors are ARGB ints. Coordinates are pixels with the y axis pointing
+ * down. Text metrics follow android.graphics.Paint: the ascent is negative
+ * (above the baseline), the descent positive.
+ */
+public interface RingSurface {
+
+    /**
+     * Sets the text size and shadow used by the following text calls.
+     *
+     * @param shadowRadius blur radius of the text shadow, 0 for no shadow
+     */
+    void setTextStyle(float textSize, float shadowRadius, float shadowDx, float shadowDy,
+                      int shadowColor);
+
+    /**
+     * Stores the advance of each of the first {@code count} chars in
+     * {@code widths}.
+     */
+    void getGlyphWidths(char[] text, int count, float[] widths);
+
+    /**
+     * @return distance above the baseline of the tallest glyph, negative
+     */
+    float getAscent();
+
+    /**
+     * @return distance below the baseline of the lowest glyph, positive
+     */
+    float getDescent();
+
+    /**
+     * Strokes a circle.
+     */
+    void drawRing(float cx, float cy, float radius, float strokeWidth, int color);
+
+    /**
+     * Strokes an arc of a circle with butt ends.
+     *
+     * @param startAngle degrees clockwise from 12 o'clock
+     * @param sweepAngle degrees clockwise from the start angle
+     */
+    void drawArc(float cx, float cy, float radius, float strokeWidth, float startAngle,
+                 float sweepAngle, int color);
+
+    /**
+     * Draws {@code count} chars horizontally centered at (x, y) after
+     * rotating the surface by {@code degrees} clockwise around
+     * (pivotX, pivotY).
+     */
+    void drawGlyph(char[] text, int index, int count, float x, float y,
+                   float degrees, float pivotX, float pivotY, int color);
+}
@@ -0,0 +1,173 @@
+package com.ai.ringbutton.thumbnails;
+
+import com.ai.ringbutton.render.RingSurface;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.util.Arrays;
+
+/**
+ * {@link RingSurface} drawing into a Java2D Graphics2D, e.g. of a
+ * BufferedImage. Works in headless mode.
+ * <p>
+ * The text shadow is approximated by a box blur of the shadow radius, which
+ * is close to but not identical with the Android shadow layer.
+ */
+public final class Java2DRingSurface implements RingSurface {
+
+    private static final float QUARTER_CIRCLE = 90f;
+
+    private final Graphics2D mGraphics;
+    private final Font mBaseFont;
+    private final Ellipse2D.Float mCircle = new Ellipse2D.Float();
+    private final Arc2D.Float mArc = new Arc2D.Float(Arc2D.OPEN);
+    private Font mFont;
+    private FontMetrics mMetrics;
+    private float mShadowRadius, mShadowDx, mShadowDy;
+    private int mShadowColor;
+
+    /**
+     * @param fontFamily Android font family name ("sans-serif", "serif",
+     *                   "monospace") or a Java2D font name
+     */
+    public Java2DRingSurface(Graphics2D graphics, String fontFamily) {
+        this(graphics, new Font(toJavaFamily(fontFamily), Font.PLAIN, 1));
+    }
+
+    /**
+     * @param font font of the text, e.g. loaded from a TTF file with
+     *             {@link Font#createFont(int, java.io.File)} for rendering
+     *             independent of the installed fonts; its size is ignored
+     */
+    public Java2DRingSurface(Graphics2D graphics, Font font) {
+        mGraphics = graphics;
+        mBaseFont = font;
+        mGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        mGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        mGraphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+                RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        setTextStyle(mBaseFont.getSize2D(), 0, 0, 0, 0);
+    }
+
+    @Override
+    public void setTextStyle(float textSize, float shadowRadius, float shadowDx, float shadowDy,
+                             int shadowColor) {
+        if (mFont == null || mFont.getSize2D() != textSize) {
+            mFont = mBaseFont.deriveFont(textSize);
+            mMetrics = mGraphics.getFontMetrics(mFont);
+        }
+        mShadowRadius = shadowRadius;
+        mShadowDx = shadowDx;
+        mShadowDy = shadowDy;
+        mShadowColor = shadowColor;
+    }
+
+    @Override
+    public void getGlyphWidths(char[] text, int count, float[] widths) {
+        for (int i = 0; i < count; i++) {
+            widths[i] = (float) mFont.getStringBounds(text, i, i + 1,
+                    mMetrics.getFontRenderContext()).getWidth();
+        }
+    }
+
+    @Override
+    public float getAscent() {
+        return -mMetrics.getAscent();
+    }
+
+    @Override
+    public float getDescent() {
+        return mMetrics.getDescent();
+    }
+
+    @Override
+    public void drawRing(float cx, float cy, float radius, float strokeWidth, int color) {
+        mGraphics.setColor(new Color(color, true));
+        mGraphics.setStroke(new BasicStroke(strokeWidth));
+        mCircle.setFrame(cx - radius, cy - radius, 2 * radius, 2 * radius);
+        mGraphics.draw(mCircle);
+    }
+
+    @Override
+    public void drawArc(float cx, float cy, float radius, float strokeWidth, float startAngle,
+                        float sweepAngle, int color) {
+        mGraphics.setColor(new Color(color, true));
+        mGraphics.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_BUTT,
+                BasicStroke.JOIN_MITER));
+        // Java2D angles run counterclockwise from 3 o'clock
+        mArc.setArc(cx - radius, cy - radius, 2 * radius, 2 * radius,
+                QUARTER_CIRCLE - startAngle, -sweepAngle, Arc2D.OPEN);
+        mGraphics.draw(mArc);
+    }
+
+    @Override
+    public void drawGlyph(char[] text, int index, int count, float x, float y,
+                          float degrees, float pivotX, float pivotY, int color) {
+        String glyph = new String(text, index, count);
+        float left = x - (float) mFont.getStringBounds(glyph,
+                mMetrics.getFontRenderContext()).getWidth() / 2.0f;
+        AffineTransform saved = mGraphics.getTransform();
+        mGraphics.rotate(Math.toRadians(degrees), pivotX, pivotY);
+        if (mShadowColor != 0) {
+            drawShadow(glyph, left + mShadowDx, y + mShadowDy);
+        }
+        mGraphics.setFont(mFont);
+        mGraphics.setColor(new Color(color, true));
+        mGraphics.drawString(glyph, left, y);
+        mGraphics.setTransform(saved);
+    }
+
+    private void drawShadow(String glyph, float left, float baseline) {
+        Color shadow = new Color(mShadowColor, true);
+        int pad = (int) Math.ceil(mShadowRadius);
+        if (pad == 0) {
+            mGraphics.setFont(mFont);
+            mGraphics.setColor(shadow);
+            mGraphics.drawString(glyph, left, baseline);
+            return;
+        }
+        int w = mMetrics.stringWidth(glyph) + 2 * pad + 1;
+        int h = mMetrics.getAscent() + mMetrics.getDescent() + 2 * pad + 1;
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHints(mGraphics.getRenderingHints());
+        g.setFont(mFont);
+        g.setColor(shadow);
+        g.drawString(glyph, pad, pad + mMetrics.getAscent());
+        g.dispose();
+        image = blur(blur(image, pad, true), pad, false);
+        mGraphics.drawImage(image, Math.round(left) - pad,
+                Math.round(baseline) - mMetrics.getAscent() - pad, null);
+    }
+
+    private static BufferedImage blur(BufferedImage image, int radius, boolean horizontal) {
+        int size = 2 * radius + 1;
+        float[] weights = new float[size];
+        Arrays.fill(weights, 1.0f / size);
+        Kernel kernel = horizontal ? new Kernel(size, 1, weights) : new Kernel(1, size, weights);
+        return new ConvolveOp(kernel, ConvolveOp.EDGE_NO_OP, null).filter(image, null);
+    }
+
+    private static String toJavaFamily(String family) {
+        if (family == null || "sans-serif".equals(family)) {
+            return Font.SANS_SERIF;
+        } else if ("serif".equals(family)) {
+            return Font.SERIF;
+        } else if ("monospace".equals(family)) {
+            return Font.MONOSPACED;
+        }
+        return family;
+    }
+}
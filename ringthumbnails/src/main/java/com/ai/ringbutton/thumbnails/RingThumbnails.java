@@ -0,0 +1,144 @@
+package com.ai.ringbutton.thumbnails;
+
+import com.ai.ringbutton.render.RingPainter;
+import com.ai.ringbutton.render.RingSpec;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Renders ring thumbnails as PNG files on a plain JVM, without an Android
+ * runtime. Batches are split across a fork-join pool.
+ * <p>
+ * Usage: {@code RingThumbnails <outputDir> <sizePx> <text>...} writes one
+ * ring per text with the RingButton defaults.
+ */
+public final class RingThumbnails {
+
+    // below this many thumbnails a task renders instead of splitting
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+    private static final float TEXT_SIZE_FRACTION = 0.12f;
+
+    private RingThumbnails() { }
+
+    /**
+     * One thumbnail to render.
+     */
+    public static final class Job {
+        final RingSpec spec;
+        final int size;
+        final File output;
+
+        /**
+         * @param size width and height of the image in pixels
+         */
+        public Job(RingSpec spec, int size, File output) {
+            this.spec = spec;
+            this.size = size;
+            this.output = output;
+        }
+    }
+
+    /**
+     * Renders a ring into a new transparent image.
+     */
+    public static BufferedImage render(RingSpec spec, int size) {
+        return render(spec, size, new RingPainter());
+    }
+
+    private static BufferedImage render(RingSpec spec, int size, RingPainter painter) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            painter.paint(spec, new Java2DRingSurface(g, spec.getFontFamily()), size, size);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders all jobs in parallel and writes them as PNG files.
+     *
+     * @throws IOException if a file can't be written; other files may have
+     *                     been written already
+     */
+    public static void renderAll(List<Job> jobs, ForkJoinPool pool) throws IOException {
+        try {
+            pool.invoke(new RenderTask(jobs, 0, jobs.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: RingThumbnails <outputDir> <sizePx> <text>...");
+            System.exit(1);
+        }
+        File dir = new File(args[0]);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create " + dir);
+        }
+        int size = Integer.parseInt(args[1]);
+        List<Job> jobs = new ArrayList<Job>();
+        for (int i = 2; i < args.length; i++) {
+            RingSpec spec = new RingSpec.Builder(size * TEXT_SIZE_FRACTION).text(args[i]).build();
+            jobs.add(new Job(spec, size, new File(dir, "ring_" + (i - 2) + ".png")));
+        }
+        renderAll(jobs, new ForkJoinPool());
+    }
+
+    private static final class RenderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Job> mJobs;
+        private final int mFrom, mTo;
+
+        RenderTask(List<Job> jobs, int from, int to) {
+            mJobs = jobs;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= SEQUENTIAL_THRESHOLD) {
+                RingPainter painter = new RingPainter();
+                for (int i = mFrom; i < mTo; i++) {
+                    Job job = mJobs.get(i);
+                    try {
+                        ImageIO.write(render(job.spec, job.size, painter), "png", job.output);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return;
+            }
+            int mid = (mFrom + mTo) >>> 1;
+            invokeAll(new RenderTask(mJobs, mFrom, mid), new RenderTask(mJobs, mid, mTo));
+        }
+    }
+
+    // java.io.UncheckedIOException needs Java 8
+    private static final class UncheckedIOException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UncheckedIOException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.ai.ringbutton.thumbnails;
+
+import com.ai.ringbutton.geometry.RingGeometry;
+import com.ai.ringbutton.render.RingPainter;
+import com.ai.ringbutton.render.RingSpec;
+import com.ai.ringbutton.render.RingSurface;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Throughput and allocation regression suite for the measure, draw and
+ * touch paths of a ring, run on the plain JVM.
+ * <p>
+ * Every case records operations per second and bytes allocated per
+ * operation and fails if it is much slower, or allocates more, than the
+ * baseline in {@code benchmark-baseline.properties}. Run with
+ * {@code -Dring.benchmark.record=true} to rewrite the baseline instead.
+ */
+public class RingBenchmarkTest {
+
+    private static final String BASELINE = "benchmark-baseline.properties";
+    private static final String BASELINE_SOURCE =
+            "src/test/resources/com/ai/ringbutton/thumbnails/" + BASELINE;
+    private static final boolean RECORD = Boolean.getBoolean("ring.benchmark.record");
+
+    private static final long WARMUP_NANOS = 300000000L;
+    private static final long MEASURE_NANOS = 500000000L;
+    private static final int BATCH = 256;
+
+    // throughput depends on the machine: only a collapse is a failure
+    private static final double MIN_THROUGHPUT_RATIO = 0.25;
+    // allocations are deterministic up to JIT escape analysis
+    private static final double MAX_ALLOCATION_RATIO = 1.25;
+    private static final double ALLOCATION_SLACK_BYTES = 1.0;
+
+    private static final int SIZE = 200;
+    private static final String TEXT = "RingButton";
+
+    private static Properties sBaseline;
+    private static Properties sRecorded;
+
+    private static volatile float sSink;
+
+    /**
+     * A benchmarked operation, repeated {@code count} times per call.
+     */
+    private interface Operation {
+        void run(int count);
+    }
+
+    @BeforeClass
+    public static void loadBaseline() throws IOException {
+        sBaseline = new Properties();
+        sRecorded = new Properties();
+        if (RECORD) {
+            return;
+        }
+        InputStream in = RingBenchmarkTest.class.getResourceAsStream(BASELINE);
+        assertNotNull("missing " + BASELINE + ", record it first", in);
+        try {
+            sBaseline.load(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @AfterClass
+    public static void storeBaseline() throws IOException {
+        if (!RECORD) {
+            return;
+        }
+        File file = new File(BASELINE_SOURCE);
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Can't create " + file.getParent());
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            sRecorded.store(out, "RingBenchmarkTest baseline: ops/sec and bytes/op");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Geometry of a resized ring and glyph placement of its text, the work
+     * of onSizeChanged in RingButton.
+     */
+    @Test
+    public void measure() {
+        final float[] widths = new float[TEXT.length()];
+        final float[] angles = new float[TEXT.length()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = 8 + i % 3;
+        }
+        check("measure", new Operation() {
+            @Override
+            public void run(int count) {
+                float sum = 0;
+                for (int i = 0; i < count; i++) {
+                    float ext = SIZE + (i & 63);
+                    float in = RingGeometry.resolveInternalDiameter(ext, -1);
+                    float radius = RingGeometry.centerlineRadius(ext, in);
+                    sum += RingGeometry.strokeWidth(ext, in);
+                    RingGeometry.placeGlyphs(widths, widths.length, radius, angles);
+                    sum += angles[0];
+                }
+                sSink = sum;
+            }
+        });
+    }
+
+    /**
+     * The painter alone: geometry, glyph placement and surface calls
+     * without any rasterization.
+     */
+    @Test
+    public void drawPainter() {
+        final RingSpec spec = new RingSpec.Builder(24).text(TEXT).build();
+        final RingPainter painter = new RingPainter();
+        final CountingSurface surface = new CountingSurface();
+        check("drawPainter", new Operation() {
+            @Override
+            public void run(int count) {
+                for (int i = 0; i < count; i++) {
+                    painter.paint(spec, surface, SIZE, SIZE);
+                }
+                sSink = surface.mCalls;
+            }
+        });
+    }
+
+    /**
+     * A full ring rasterized by Java2D into an offscreen image.
+     */
+    @Test
+    public void drawJava2D() {
+        final RingSpec spec = new RingSpec.Builder(24).text(TEXT).build();
+        final RingPainter painter = new RingPainter();
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            final Java2DRingSurface surface = new Java2DRingSurface(g, spec.getFontFamily());
+            check("drawJava2D", new Operation() {
+                @Override
+                public void run(int count) {
+                    for (int i = 0; i < count; i++) {
+                        painter.paint(spec, surface, SIZE, SIZE);
+                    }
+                }
+            });
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Down, move and up events around the ring filtered by the ring
+     * hit-test, as RingButton filters its touch stream.
+     */
+    @Test
+    public void touch() {
+        final int events = 64;
+        final float[] xs = new float[events];
+        final float[] ys = new float[events];
+        for (int i = 0; i < events; i++) {
+            double angle = 2 * Math.PI * i / events;
+            float distance = SIZE * (0.2f + 0.3f * (i % 5) / 4f);
+            xs[i] = (float) (SIZE / 2 + distance * Math.sin(angle));
+            ys[i] = (float) (SIZE / 2 - distance * Math.cos(angle));
+        }
+        final float outer = SIZE / 2f;
+        final float inner = RingGeometry.resolveInternalDiameter(SIZE, -1) / 2f;
+        check("touch", new Operation() {
+            @Override
+            public void run(int count) {
+                int clicks = 0;
+                float angles = 0;
+                for (int i = 0; i < count; i++) {
+                    boolean downInRing = false;
+                    for (int e = 0; e < events; e++) {
+                        float dx = xs[e] - outer;
+                        float dy = ys[e] - outer;
+                        boolean inRing = RingGeometry.isInAnnulus(dx, dy, inner, outer);
+                        if (e == 0) {
+                            downInRing = inRing;
+                        } else if (inRing) {
+                            angles += RingGeometry.angleOf(dx, dy);
+                        }
+                        if (e == events - 1 && downInRing && inRing) {
+                            clicks++;
+                        }
+                    }
+                }
+                sSink = clicks + angles;
+            }
+        });
+    }
+
+    private static void check(String name, Operation op) {
+        long deadline = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < deadline) {
+            op.run(BATCH);
+        }
+
+        long ops = 0;
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            op.run(BATCH);
+            ops += BATCH;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        long bytesAfter = allocatedBytes();
+
+        double opsPerSec = ops * 1e9 / elapsed;
+        double bytesPerOp = bytesBefore < 0 ? -1 : (double) (bytesAfter - bytesBefore) / ops;
+        System.out.println(String.format(Locale.US, "%-12s %14.0f ops/s %10.1f B/op",
+                name, opsPerSec, bytesPerOp));
+
+        if (RECORD) {
+            sRecorded.setProperty(name + ".opsPerSec", String.format(Locale.US, "%.0f", opsPerSec));
+            sRecorded.setProperty(name + ".bytesPerOp",
+                    String.format(Locale.US, "%.1f", bytesPerOp));
+            return;
+        }
+        double baseOps = Double.parseDouble(sBaseline.getProperty(name + ".opsPerSec"));
+        double baseBytes = Double.parseDouble(sBaseline.getProperty(name + ".bytesPerOp"));
+        assertTrue(String.format(Locale.US, "%s: %.0f ops/s, baseline %.0f",
+                        name, opsPerSec, baseOps),
+                opsPerSec >= baseOps * MIN_THROUGHPUT_RATIO);
+        if (bytesPerOp >= 0) {
+            assertTrue(String.format(Locale.US, "%s: %.1f B/op, baseline %.1f",
+                            name, bytesPerOp, baseBytes),
+                    bytesPerOp <= baseBytes * MAX_ALLOCATION_RATIO + ALLOCATION_SLACK_BYTES);
+        }
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 if the
+     *         JVM doesn't count them
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Surface with fixed metrics that only counts the calls.
+     */
+    private static final class CountingSurface implements RingSurface {
+        int mCalls;
+
+        @Override
+        public void setTextStyle(float textSize, float shadowRadius, float shadowDx,
+                                 float shadowDy, int shadowColor) {
+            mCalls++;
+        }
+
+        @Override
+        public void getGlyphWidths(char[] text, int count, float[] widths) {
+            for (int i = 0; i < count; i++) {
+                widths[i] = 10;
+            }
+        }
+
+        @Override
+        public float getAscent() {
+            return -18;
+        }
+
+        @Override
+        public float getDescent() {
+            return 5;
+        }
+
+        @Override
+        public void drawRing(float cx, float cy, float radius, float strokeWidth, int color) {
+            mCalls++;
+        }
+
+        @Override
+        public void drawArc(float cx, float cy, float radius, float strokeWidth,
+                            float startAngle, float sweepAngle, int color) {
+            mCalls++;
+        }
+
+        @Override
+        public void drawGlyph(char[] text, int index, int count, float x, float y,
+                              float degrees, float pivotX, float pivotY, int color) {
+            mCalls++;
+        }
+    }
+}
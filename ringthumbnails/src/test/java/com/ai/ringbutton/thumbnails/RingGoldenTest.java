@@ -0,0 +1,231 @@
+package com.ai.ringbutton.thumbnails;
+
+import com.ai.ringbutton.render.RingPainter;
+import com.ai.ringbutton.render.RingSpec;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Golden-image regression test of the shared ring rendering.
+ * <p>
+ * Renders a matrix of diameters, text sizes, typefaces, toggle (inverted
+ * colors) states, segments and progress through {@link RingPainter} and
+ * compares each image with a golden PNG in {@code goldens/}. Text uses the
+ * Roboto TTF bundled with the app, plain or emboldened by Java2D, so the
+ * result does not depend on the installed fonts. All cases are rendered up
+ * front on a ForkJoinPool; each test waits for its own image. Two pixels
+ * match if their channels differ by at most {@link #CHANNEL_TOLERANCE},
+ * which absorbs antialiasing noise. A case
+ * passes if at most {@link #MAX_DIFF_FRACTION} of its pixels don't match;
+ * otherwise the actual image and a diff with the mismatching pixels in red
+ * are written to {@code build/golden-diffs}. Run with
+ * {@code -Dring.goldens.record=true} to rewrite the goldens instead.
+ */
+@RunWith(Parameterized.class)
+public class RingGoldenTest {
+
+    private static final String GOLDENS = "goldens/";
+    private static final String GOLDENS_SOURCE =
+            "src/test/resources/com/ai/ringbutton/thumbnails/" + GOLDENS;
+    private static final File DIFF_DIR = new File("build/golden-diffs");
+    private static final String FONT = "/fonts/Roboto-Regular.ttf";
+    private static final boolean RECORD = Boolean.getBoolean("ring.goldens.record");
+
+    static final int CHANNEL_TOLERANCE = 24;
+    static final double MAX_DIFF_FRACTION = 0.002;
+
+    private static final int[] DIAMETERS = {48, 96, 200};
+    private static final float[] TEXT_SIZE_FRACTIONS = {0.08f, 0.12f, 0.16f};
+    private static final float CHART_TEXT_SIZE_FRACTION = 0.1f;
+    // Font styles of the bundled font; the golden names of bold cases end in _bold
+    private static final int[] FONT_STYLES = {Font.PLAIN, Font.BOLD};
+    private static final String TEXT = "RingButton";
+    private static final int DIFF_COLOR = 0xFFFF0000;
+
+    private static ForkJoinPool sPool;
+    // rendered images by case name
+    private static Map<String, Future<BufferedImage>> sRendered;
+
+    private final String mName;
+    private final int mSize;
+
+    public RingGoldenTest(String name, RingSpec spec, int size, int fontStyle) {
+        mName = name;
+        mSize = size;
+    }
+
+    @Parameters(name = "{0}")
+    public static List<Object[]> matrix() {
+        List<Object[]> cases = new ArrayList<Object[]>();
+        for (int size : DIAMETERS) {
+            for (float fraction : TEXT_SIZE_FRACTIONS) {
+                for (int fontStyle : FONT_STYLES) {
+                    for (int toggled = 0; toggled < 2; toggled++) {
+                        RingSpec spec = new RingSpec.Builder(size * fraction)
+                                .text(TEXT)
+                                .ringColor(toggled == 0
+                                        ? RingSpec.DEFAULT_RING_COLOR
+                                        : RingSpec.DEFAULT_TEXT_COLOR)
+                                .textColor(toggled == 0
+                                        ? RingSpec.DEFAULT_TEXT_COLOR
+                                        : RingSpec.DEFAULT_RING_COLOR)
+                                .build();
+                        String name = "ring_" + size + "_" + Math.round(fraction * 100)
+                                + (fontStyle == Font.BOLD ? "_bold" : "")
+                                + (toggled == 0 ? "" : "_toggled");
+                        cases.add(new Object[] {name, spec, size, fontStyle});
+                    }
+                }
+            }
+        }
+        for (int size : DIAMETERS) {
+            float textSize = size * CHART_TEXT_SIZE_FRACTION;
+            cases.add(new Object[] {"segments_" + size, segments(textSize).build(), size,
+                    Font.PLAIN});
+            cases.add(new Object[] {"progress_" + size,
+                    new RingSpec.Builder(textSize).text(TEXT).progress(0.3f).build(), size,
+                    Font.PLAIN});
+            cases.add(new Object[] {"segments_progress_" + size,
+                    segments(textSize).progress(0.65f).progressColor(0x80000000).build(), size,
+                    Font.PLAIN});
+        }
+        return cases;
+    }
+
+    private static RingSpec.Builder segments(float textSize) {
+        return new RingSpec.Builder(textSize)
+                .text(TEXT)
+                .addSegment(30, 100, 0xFF99CC00, "Q1")
+                .addSegment(150, 80, 0xFFAA66CC, "Q2")
+                .addSegment(250, 60, 0xFFFF4444, null);
+    }
+
+    /**
+     * Loads the font and starts rendering every case of the matrix.
+     */
+    @BeforeClass
+    public static void renderAll() throws IOException, FontFormatException {
+        InputStream in = RingGoldenTest.class.getResourceAsStream(FONT);
+        assertNotNull("missing " + FONT, in);
+        final Font font;
+        try {
+            font = Font.createFont(Font.TRUETYPE_FONT, in);
+        } finally {
+            in.close();
+        }
+        sPool = new ForkJoinPool();
+        sRendered = new HashMap<String, Future<BufferedImage>>();
+        for (final Object[] c : matrix()) {
+            sRendered.put((String) c[0], sPool.submit(new Callable<BufferedImage>() {
+                @Override
+                public BufferedImage call() {
+                    return render((RingSpec) c[1], (Integer) c[2],
+                            font.deriveFont((Integer) c[3]));
+                }
+            }));
+        }
+    }
+
+    @AfterClass
+    public static void shutDownPool() {
+        sPool.shutdownNow();
+    }
+
+    private static BufferedImage render(RingSpec spec, int size, Font font) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            new RingPainter().paint(spec, new Java2DRingSurface(g, font), size, size);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    @Test
+    public void matchesGolden() throws IOException, InterruptedException, ExecutionException {
+        BufferedImage actual = sRendered.get(mName).get();
+        String fileName = mName + ".png";
+        if (RECORD) {
+            File dir = new File(GOLDENS_SOURCE);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Can't create " + dir);
+            }
+            ImageIO.write(actual, "png", new File(dir, fileName));
+            return;
+        }
+        InputStream in = RingGoldenTest.class.getResourceAsStream(GOLDENS + fileName);
+        assertNotNull("missing golden " + fileName + ", record it first", in);
+        BufferedImage golden;
+        try {
+            golden = ImageIO.read(in);
+        } finally {
+            in.close();
+        }
+        BufferedImage diff = new BufferedImage(mSize, mSize, BufferedImage.TYPE_INT_ARGB);
+        int differences = countDifferences(actual, golden, diff);
+        if (differences > MAX_DIFF_FRACTION * mSize * mSize) {
+            assertTrue("Can't create " + DIFF_DIR, DIFF_DIR.isDirectory() || DIFF_DIR.mkdirs());
+            ImageIO.write(actual, "png", new File(DIFF_DIR, mName + "_actual.png"));
+            ImageIO.write(diff, "png", new File(DIFF_DIR, mName + "_diff.png"));
+            fail(mName + ": " + differences + " pixels differ, see " + DIFF_DIR);
+        }
+    }
+
+    /**
+     * Counts pixels that differ by more than the channel tolerance and
+     * paints them into {@code diff}.
+     */
+    static int countDifferences(BufferedImage actual, BufferedImage golden, BufferedImage diff) {
+        int w = actual.getWidth();
+        int h = actual.getHeight();
+        if (golden.getWidth() != w || golden.getHeight() != h) {
+            return w * h;
+        }
+        int count = 0;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int a = actual.getRGB(x, y);
+                int g = golden.getRGB(x, y);
+                boolean same = true;
+                for (int shift = 0; shift < 32 && same; shift += 8) {
+                    int delta = ((a >>> shift) & 0xFF) - ((g >>> shift) & 0xFF);
+                    same = Math.abs(delta) <= CHANNEL_TOLERANCE;
+                }
+                if (!same) {
+                    count++;
+                }
+                // faded golden as context, mismatches on top
+                diff.setRGB(x, y, same ? (g & 0x00FFFFFF) | 0x40000000 : DIFF_COLOR);
+            }
+        }
+        return count;
+    }
+}